@@ -1,9 +1,18 @@
 package org.keeber.desktop;
 
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.GridBagConstraints;
+import java.awt.Image;
 import java.awt.Insets;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Window;
+import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.dnd.DnDConstants;
 import java.awt.dnd.DropTarget;
 import java.awt.dnd.DropTargetDragEvent;
@@ -14,43 +23,128 @@ import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseWheelEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.beans.Introspector;
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeListenerProxy;
 import java.beans.PropertyChangeSupport;
+import java.beans.PropertyDescriptor;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
+import javax.imageio.ImageIO;
 import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
 import javax.swing.Action;
 import javax.swing.BorderFactory;
 import javax.swing.Icon;
+import javax.swing.ImageIcon;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JList;
+import javax.swing.JTable;
+import javax.swing.RepaintManager;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.border.Border;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
 
 import org.jdesktop.beansbinding.AutoBinding;
 import org.jdesktop.beansbinding.BeanProperty;
 import org.jdesktop.beansbinding.BindingGroup;
 import org.jdesktop.beansbinding.Bindings;
 import org.jdesktop.beansbinding.ELProperty;
+import org.jdesktop.beansbinding.ObjectProperty;
 import org.jdesktop.beansbinding.Property;
 import org.jdesktop.beansbinding.PropertyStateEvent;
 import org.jdesktop.beansbinding.PropertyStateListener;
@@ -61,6 +155,11 @@ import org.jdesktop.swingbinding.SwingBindings;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 public class MVC {
 
@@ -162,7 +261,12 @@ public class MVC {
   }
 
   public static class Model {
-    protected transient PropertyChangeSupport support = new PropertyChangeSupport(this);
+    /**
+     * The listener support - only created when the first listener is added (so models nobody
+     * listens to, like the rows of a large table, don't carry one). Subclasses use
+     * {@link #support()}.
+     */
+    private transient volatile PropertyChangeSupport support;
 
     /**
      * Called when a property changes. Generally used in a setter like this:
@@ -180,7 +284,141 @@ public class MVC {
      * @param newValue
      */
     protected void propertyChanged(String propertyName, Object oldValue, Object newValue) {
-      support.firePropertyChange(propertyName, oldValue, newValue);
+      if (Trace.tracing()) {
+        Trace.changed(this, propertyName, oldValue, newValue);
+      }
+      if (getEquality(propertyName).test(oldValue, newValue)) {
+        return;
+      }
+      modified();
+      if (Replication.active) {
+        Replication.changed(this, propertyName, oldValue);
+      }
+      PropertyChangeSupport support = this.support;
+      if (support == null) {
+        return;
+      }
+      if (oldValue == null || !oldValue.equals(newValue)) {
+        support.firePropertyChange(propertyName, oldValue, newValue);
+        return;
+      }
+      // the support drops events for equal values - but the equality said they differ
+      PropertyChangeEvent event = new PropertyChangeEvent(this, propertyName, oldValue, newValue);
+      for (PropertyChangeListener listener : support.getPropertyChangeListeners()) {
+        if (listener instanceof PropertyChangeListenerProxy) {
+          PropertyChangeListenerProxy proxy = (PropertyChangeListenerProxy) listener;
+          if (!proxy.getPropertyName().equals(propertyName)) {
+            continue;
+          }
+        }
+        listener.propertyChange(event);
+      }
+    }
+
+    /**
+     * The listener support - created on first use (the models nobody listens to don't need one, use
+     * {@link #hasListeners(String)} to check for listeners without creating it).
+     * 
+     * @return the support
+     */
+    protected PropertyChangeSupport support() {
+      PropertyChangeSupport support = this.support;
+      if (support == null) {
+        synchronized (this) {
+          if (this.support == null) {
+            this.support = new PropertyChangeSupport(this);
+          }
+          support = this.support;
+        }
+      }
+      return support;
+    }
+
+    /**
+     * @param propertyName
+     * @return true if anyone is listening to the property (or to all properties)
+     */
+    public boolean hasListeners(String propertyName) {
+      PropertyChangeSupport support = this.support;
+      return support != null && support.hasListeners(propertyName);
+    }
+
+    private transient Map<String, BiPredicate<Object, Object>> equalities;
+
+    /**
+     * Sets how the values of a property are compared - no change event is fired (and bound controls
+     * aren't updated) when the old and new values are equal. The default compares the values (and
+     * the contents of arrays) with {@link Objects#deepEquals(Object, Object)} - except observable
+     * lists and maps, which are the same only if they are the same instance (whoever listens to the
+     * old one has to move to the new one even when their contents are equal).
+     * 
+     * @param propertyName
+     * @param equality
+     */
+    protected void equality(String propertyName, BiPredicate<Object, Object> equality) {
+      if (equalities == null) {
+        equalities = new HashMap<>();
+      }
+      equalities.put(propertyName, equality);
+    }
+
+    /**
+     * @param propertyName
+     * @return how values of the property are compared
+     */
+    public BiPredicate<Object, Object> getEquality(String propertyName) {
+      BiPredicate<Object, Object> equality = equalities == null ? null : equalities.get(propertyName);
+      return equality == null ? Model::same : equality;
+    }
+
+    private static boolean same(Object a, Object b) {
+      if (a instanceof org.jdesktop.observablecollections.ObservableList || a instanceof org.jdesktop.observablecollections.ObservableMap) {
+        return a == b;
+      }
+      return Objects.deepEquals(a, b);
+    }
+
+    /**
+     * The listeners the dependencies of computed properties added to this model - and the property
+     * each one depends on.
+     */
+    private transient Map<PropertyChangeListener, String> dependencies;
+
+    private synchronized void dependency(PropertyChangeListener[] before, String propertyName) {
+      Set<PropertyChangeListener> existing = Collections.newSetFromMap(new IdentityHashMap<>());
+      existing.addAll(Arrays.asList(before));
+      for (PropertyChangeListener listener : getPropertyChangeListeners()) {
+        if (!existing.contains(listener)) {
+          if (dependencies == null) {
+            dependencies = Collections.synchronizedMap(new IdentityHashMap<>());
+          }
+          dependencies.put(listener, propertyName);
+        }
+      }
+    }
+
+    /**
+     * @param propertyName
+     * @return true if anyone listens to the property - other than the dependencies of computed
+     *         properties that depend on something else
+     */
+    private boolean observed(String propertyName) {
+      if (dependencies == null) {
+        return hasListeners(propertyName);
+      }
+      for (PropertyChangeListener listener : getPropertyChangeListeners()) {
+        if (listener instanceof PropertyChangeListenerProxy) {
+          if (!((PropertyChangeListenerProxy) listener).getPropertyName().equals(propertyName)) {
+            continue;
+          }
+          listener = ((PropertyChangeListenerProxy) listener).getListener();
+        }
+        String dependsOn = dependencies.get(listener);
+        if (dependsOn == null || dependsOn.equals(propertyName)) {
+          return true;
+        }
+      }
+      return false;
     }
 
     /**
@@ -189,7 +427,7 @@ public class MVC {
      * @param listener
      */
     public void addPropertyChangeListener(PropertyChangeListener listener) {
-      support.addPropertyChangeListener(listener);
+      support().addPropertyChangeListener(listener);
     }
 
     /**
@@ -198,805 +436,6528 @@ public class MVC {
      * @param listener
      */
     public void removePropertyChangeListener(PropertyChangeListener listener) {
-      support.removePropertyChangeListener(listener);
+      PropertyChangeSupport support = this.support;
+      if (support != null) {
+        support.removePropertyChangeListener(listener);
+      }
+    }
+
+    /**
+     * @return the listeners added to this model
+     */
+    public PropertyChangeListener[] getPropertyChangeListeners() {
+      PropertyChangeSupport support = this.support;
+      return support == null ? new PropertyChangeListener[0] : support.getPropertyChangeListeners();
     }
 
     /*
-     * Maps and Lists
+     * SNAPSHOTS
+     */
+
+    private transient long version;
+    private transient Snapshot.Frozen<Snapshot> snapshot;
+    private transient Snapshot.Link link;
+
+    private void modified() {
+      version++;
+      if (link != null) {
+        link.changed();
+      }
+    }
+
+    /**
+     * Takes an immutable snapshot of this model - its properties, nested models, ObservableLists and
+     * ObservableMaps - that can be read from any thread without locking. Parts of the tree that
+     * haven't changed (through {@link #propertyChanged(String, Object, Object)} or the observable
+     * collections) since the last snapshot are shared with it, so only the changes are copied - and
+     * a tree that hasn't changed at all is returned without being walked. Should be called on the
+     * thread that changes the model (the dispatcher).
+     * 
+     * @return the snapshot
      */
+    public Snapshot snapshot() {
+      Snapshot.Frozen<Snapshot> last = snapshot;
+      Snapshot.Link link = Snapshot.link(this);
+      if (last != null && last.version == version && !link.stale) {
+        return last.value;
+      }
+      Snapshot.Shape shape = Snapshot.SHAPES.get(getClass());
+      return (snapshot = Snapshot.freeze(link, last, version, shape.read(this), parts -> new Snapshot(shape, parts))).value;
+    }
+
     /**
-     * A generic Map that tracks changes - it can be used to bind values: ${mapname.property}. Be
-     * careful to have default values in the list if you depend on them (otherwise it will fail).
+     * An immutable copy of a model - nested models are snapshots, lists and maps are unmodifiable
+     * copies (holding snapshots of the models they contain) and other values are referenced as is
+     * (so should be immutable).
      * 
      * @author Jason Keeber <jason@keeber.org>
      *
-     * @param <K>
-     * @param <V>
      */
-    public static final class ObservableMap<K, V> extends HashMap<K, V> implements org.jdesktop.observablecollections.ObservableMap<K, V> {
-      private transient List<ObservableMapListener> listeners;
-      private V defValue;
+    public static final class Snapshot {
+      private static final ClassValue<Shape> SHAPES = new ClassValue<Shape>() {
 
-      public ObservableMap() {
-        super();
+        @Override
+        protected Shape computeValue(Class<?> type) {
+          return new Shape(type);
+        }
+      };
+      private final Shape shape;
+      private final Object[] values;
+
+      private Snapshot(Shape shape, Object[] values) {
+        this.shape = shape;
+        this.values = values;
       }
 
-      public ObservableMap(V defValue) {
-        super();
-        this.defValue = defValue;
+      /**
+       * @return the class of the model
+       */
+      public Class<?> getType() {
+        return shape.type;
       }
 
-      private void listeners(Consumer<? super ObservableMapListener> action) {
-        listeners().forEach(action);
+      /**
+       * @return the property names
+       */
+      public List<String> getProperties() {
+        return shape.names;
       }
 
-      private List<ObservableMapListener> listeners() {
-        return (listeners == null ? listeners = new CopyOnWriteArrayList<ObservableMapListener>() : listeners);
+      /**
+       * Gets a value by path, eg: address.street or items.0.name - where the parts are properties of
+       * snapshots, keys of maps or indexes of lists.
+       * 
+       * @param path
+       * @return the value (null if a map or list along the path doesn't contain the key or index)
+       */
+      @SuppressWarnings("unchecked")
+      public <T> T get(String path) {
+        Object value = this;
+        for (String part : path.split("\\.")) {
+          if (value instanceof Snapshot) {
+            Snapshot snapshot = (Snapshot) value;
+            Integer index = snapshot.shape.index.get(part);
+            if (index == null) {
+              throw new IllegalArgumentException("No property [" + part + "] in " + snapshot.shape.type.getName());
+            }
+            value = snapshot.values[index];
+          } else if (value instanceof Map) {
+            value = ((Map<?, ?>) value).get(part);
+          } else if (value instanceof List) {
+            int index = Integer.parseInt(part);
+            List<?> list = (List<?>) value;
+            value = index < list.size() ? list.get(index) : null;
+          } else {
+            return null;
+          }
+        }
+        return (T) value;
       }
 
       @Override
-      public V get(Object key) {
-        return defValue == null ? super.get(key) : super.getOrDefault(key, defValue);
+      public String toString() {
+        StringBuilder sb = new StringBuilder(shape.type.getSimpleName()).append('{');
+        for (int i = 0; i < values.length; i++) {
+          sb.append(i == 0 ? "" : ", ").append(shape.names.get(i)).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
       }
 
-      @Override
-      public V put(K key, V value) {
-        V ovalue = super.put(key, value);
-        listeners(l -> {
-          if (ovalue == null) {
-            l.mapKeyAdded(ObservableMap.this, key);
-          } else {
-            l.mapKeyValueChanged(ObservableMap.this, key, value);
+      /**
+       * Snapshots a value - models, ObservableLists and ObservableMaps are snapshot, anything else
+       * is returned as is.
+       */
+      private static Object of(Object value) {
+        if (value instanceof Model) {
+          return ((Model) value).snapshot();
+        }
+        if (value instanceof ObservableList) {
+          return ((ObservableList<?>) value).snapshot();
+        }
+        if (value instanceof ObservableMap) {
+          return ((ObservableMap<?, ?>) value).snapshot();
+        }
+        return value;
+      }
+
+      /**
+       * Snapshots the parts (in place) - returning the last snapshot if the version and the snapshot
+       * of every part are unchanged. The parts that are models or collections are linked to the
+       * container so their changes mark it stale.
+       */
+      private static <T> Frozen<T> freeze(Link link, Frozen<T> last, long version, Object[] parts, Function<Object[], T> view) {
+        link.stale = false;
+        boolean same = last != null && last.version == version && last.parts.length == parts.length;
+        for (int i = 0; i < parts.length; i++) {
+          Link part = link(parts[i]);
+          if (part != null) {
+            part.owner(link);
+            parts[i] = of(parts[i]);
           }
-        });
-        return ovalue;
+          same = same && last.parts[i] == parts[i];
+        }
+        return same ? last : new Frozen<>(view.apply(parts), version, parts);
       }
 
-      @Override
-      public void putAll(Map<? extends K, ? extends V> m) {
-        m.entrySet().forEach(e -> {
-          put(e.getKey(), e.getValue());
-        });
+      /**
+       * @return the link of a model or collection (created if it hasn't got one) or null for any
+       *         other value
+       */
+      private static Link link(Object value) {
+        if (value instanceof Model) {
+          Model model = (Model) value;
+          return model.link == null ? model.link = new Link() : model.link;
+        }
+        if (value instanceof ObservableList) {
+          ObservableList<?> list = (ObservableList<?>) value;
+          return list.link == null ? list.link = new Link() : list.link;
+        }
+        if (value instanceof ObservableMap) {
+          ObservableMap<?, ?> map = (ObservableMap<?, ?>) value;
+          return map.link == null ? map.link = new Link() : map.link;
+        }
+        return null;
       }
 
-      @Override
-      public V remove(Object key) {
-        V ovalue = super.remove(key);
-        listeners(l -> {
-          l.mapKeyRemoved(ObservableMap.this, key, ovalue);
-        });
-        return ovalue;
+      /**
+       * The last snapshot of a model or collection - with the version it was taken at.
+       */
+      private static final class Frozen<T> {
+        private final T value;
+        private final long version;
+        private final Object[] parts;
+
+        private Frozen(T value, long version, Object[] parts) {
+          this.value = value;
+          this.version = version;
+          this.parts = parts;
+        }
+
       }
 
-      @Override
-      public void addObservableMapListener(ObservableMapListener listener) {
-        listeners().add(listener);
+      /**
+       * Links a model or collection to the containers whose last snapshots include it (weakly - a
+       * link doesn't keep a container that was dropped alive). A change marks the containers, and
+       * theirs, stale - so a container that isn't stale (and whose own version hasn't changed) has
+       * an up to date snapshot without walking its parts.
+       */
+      private static final class Link {
+        private boolean stale;
+        private WeakReference<Link> owner;
+        private List<WeakReference<Link>> others;
+
+        private void owner(Link link) {
+          Link current = owner == null ? null : owner.get();
+          if (current == link) {
+            return;
+          }
+          if (current == null) {
+            owner = new WeakReference<>(link);
+            return;
+          }
+          if (others == null) {
+            others = new ArrayList<>(2);
+          }
+          others.removeIf(other -> other.get() == null);
+          for (WeakReference<Link> other : others) {
+            if (other.get() == link) {
+              return;
+            }
+          }
+          others.add(new WeakReference<>(link));
+        }
+
+        /**
+         * Marks the containers stale - stopping at those already stale (their containers are too).
+         */
+        private void changed() {
+          mark(owner);
+          if (others != null) {
+            for (WeakReference<Link> other : others) {
+              mark(other);
+            }
+          }
+        }
+
+        private static void mark(WeakReference<Link> reference) {
+          Link link = reference == null ? null : reference.get();
+          if (link != null && !link.stale) {
+            link.stale = true;
+            link.changed();
+          }
+        }
+
       }
 
-      @Override
-      public void removeObservableMapListener(ObservableMapListener listener) {
-        listeners().remove(listener);
+      /**
+       * The (non static, non transient) fields of a model class and its super classes.
+       */
+      private static final class Shape {
+        private final Class<?> type;
+        private final Field[] fields;
+        private final List<String> names;
+        private final Map<String, Integer> index = new HashMap<>();
+
+        private Shape(Class<?> type) {
+          this.type = type;
+          Deque<Class<?>> hierarchy = new ArrayDeque<>();
+          for (Class<?> c = type; c != null && c != Model.class; c = c.getSuperclass()) {
+            hierarchy.push(c);
+          }
+          List<Field> fields = new ArrayList<>();
+          for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+              if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()) && !field.isSynthetic()) {
+                field.setAccessible(true);
+                index.put(field.getName(), fields.size());
+                fields.add(field);
+              }
+            }
+          }
+          this.fields = fields.toArray(new Field[fields.size()]);
+          this.names = Collections.unmodifiableList(fields.stream().map(Field::getName).collect(Collectors.toList()));
+        }
+
+        private Object[] read(Model model) {
+          Object[] values = new Object[fields.length];
+          try {
+            for (int i = 0; i < fields.length; i++) {
+              values[i] = fields[i].get(model);
+            }
+          } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+          }
+          return values;
+        }
+
       }
 
     }
 
+    /*
+     * CHANGE STREAMS
+     */
+
+    /**
+     * Publishes the changes of a property of this model (see
+     * {@link #changes(String, Executor, int)}) - delivered by the common pool with the default
+     * buffer size.
+     * 
+     * @param path of the property, eg: address.street
+     * @return the publisher
+     */
+    public ChangePublisher changes(String path) {
+      return changes(path, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
     /**
-     * A generic trackable list.
+     * Publishes the changes of a property of this model - including the element and key changes
+     * when the value is an observable list or map. Changes are published to each subscriber as they
+     * happen and to the subscribers of {@link ChangePublisher#batches()} as one list per dispatcher
+     * tick. Subscribers are sent items by the executor as they request them - each has a buffer of
+     * the given capacity and changes that don't fit are dropped rather than holding up the dispatch
+     * thread (so the stream is lossy for a subscriber that can't keep up). A subscriber is told
+     * about a gap - the next item it gets is an {@link Change.Type#OVERFLOW} change (at the start of
+     * the next batch for batch subscribers) with the number of changes it missed, after which it
+     * should read the property again.
+     * 
+     * @param path of the property, eg: address.street
+     * @param executor that delivers the changes
+     * @param bufferCapacity the maximum number of items buffered for each subscriber
+     * @return the publisher (close it to stop listening to the model)
+     */
+    public ChangePublisher changes(String path, Executor executor, int bufferCapacity) {
+      return new ChangePublisher(this, path, executor, bufferCapacity, Dispatcher.get());
+    }
+
+    /**
+     * A change to a property, list or map published by a {@link ChangePublisher}.
      * 
      * @author Jason Keeber <jason@keeber.org>
      *
-     * @param <E>
      */
-    public static final class ObservableList<E> extends ArrayList<E> implements org.jdesktop.observablecollections.ObservableList<E> {
-      private transient List<ObservableListListener> listeners;
+    public static final class Change {
+      private final String path;
+      private final Type type;
+      private final Object key;
+      private final int length;
+      private final Object oldValue, newValue;
+      private final long time = System.nanoTime();
+
+      private Change(String path, Type type, Object key, int length, Object oldValue, Object newValue) {
+        this.path = path;
+        this.type = type;
+        this.key = key;
+        this.length = length;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+      }
 
-      public ObservableList() {
-        super();
+      /**
+       * @return the path of the property published
+       */
+      public String getPath() {
+        return path;
       }
 
-      public ObservableList(List<E> list) {
-        super(list);
+      public Type getType() {
+        return type;
       }
 
-      private List<ObservableListListener> listeners() {
-        return (listeners == null ? listeners = new CopyOnWriteArrayList<ObservableListListener>() : listeners);
+      /**
+       * @return the map key, the list index or null for a change of the property itself
+       */
+      public Object getKey() {
+        return key;
       }
 
-      private void listeners(Consumer<? super ObservableListListener> action) {
-        listeners().forEach(action);
+      /**
+       * @return the number of list elements added or removed (otherwise 1)
+       */
+      public int getLength() {
+        return length;
       }
 
-      public E set(int index, E element) {
-        E oldValue = set(index, element);
-        listeners(l -> {
-          l.listElementReplaced(ObservableList.this, index, oldValue);
-        });
+      /**
+       * @return the old value (a list of the elements for removed list elements)
+       */
+      public Object getOldValue() {
         return oldValue;
       }
 
-      public void add(int index, E element) {
-        super.add(index, element);
-        modCount++;
-        listeners(l -> {
-          l.listElementsAdded(ObservableList.this, index, 1);
-        });
+      /**
+       * @return the new value (a list of the elements for added list elements)
+       */
+      public Object getNewValue() {
+        return newValue;
       }
 
-      public boolean add(E element) {
-        boolean result = super.add(element);
-        modCount++;
-        listeners(l -> {
-          l.listElementsAdded(ObservableList.this, ObservableList.super.indexOf(element), 1);
-        });
-        return result;
+      /**
+       * @return when the change happened ({@link System#nanoTime()})
+       */
+      public long getTime() {
+        return time;
       }
 
-      public E remove(int index) {
-        E oldValue = remove(index);
-        modCount++;
-        listeners(l -> {
-          l.listElementsRemoved(ObservableList.this, index, java.util.Collections.singletonList(oldValue));
-        });
-        return oldValue;
+      @Override
+      public String toString() {
+        return type + " " + path + (key == null ? "" : "[" + key + "]") + " " + oldValue + " -> " + newValue;
       }
 
-      public boolean addAll(int index, Collection<? extends E> c) {
-        if (super.addAll(index, c)) {
-          modCount++;
-          listeners(l -> {
-            l.listElementsAdded(ObservableList.this, index, c.size());
-          });
-        }
-        return true;
+      public enum Type {
+        /**
+         * The property or a map key changed.
+         */
+        CHANGED,
+        /**
+         * List elements or a map key were added.
+         */
+        ADDED,
+        /**
+         * List elements or a map key were removed.
+         */
+        REMOVED,
+        /**
+         * A list element was replaced.
+         */
+        REPLACED,
+        /**
+         * A property of a list element changed.
+         */
+        ELEMENT_CHANGED,
+        /**
+         * Changes were dropped because the subscriber's buffer was full - the length is the number
+         * missed (this change stands in for the next one), the property should be read again.
+         */
+        OVERFLOW;
       }
 
-      public void clear() {
-        List<E> dup = new ArrayList<E>(this);
-        super.clear();
-        modCount++;
+    }
+
+    /**
+     * Listens to a property (and the list or map it holds) and publishes the changes - one by one
+     * to its own subscribers and batched to the subscribers of {@link #batches()}.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static final class ChangePublisher implements Flow.Publisher<Change>, AutoCloseable {
+      private final Object model;
+      private final String path;
+      private final Property<Object, Object> property;
+      private final PropertyStateListener listener;
+      private final CollectionListener collectionListener = new CollectionListener();
+      private final Dispatcher dispatcher;
+      private final SubmissionPublisher<Change> changes;
+      private final SubmissionPublisher<List<Change>> batches;
+      private final List<Change> pending = new ArrayList<>();
+      private final AtomicLong dropped = new AtomicLong();
+      private final Set<Gaps<?>> changeGaps = ConcurrentHashMap.newKeySet();
+      private final Set<Gaps<?>> batchGaps = ConcurrentHashMap.newKeySet();
+      private Object collection;
+
+      private ChangePublisher(Model model, String path, Executor executor, int bufferCapacity, Dispatcher dispatcher) {
+        this.model = model;
+        this.path = path;
+        this.dispatcher = dispatcher;
+        this.changes = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.batches = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.property = BeanProperty.create(path);
+        this.listener = pse -> {
+          if (pse.getValueChanged()) {
+            Object value = pse.getNewValue() == PropertyStateEvent.UNREADABLE ? null : pse.getNewValue();
+            Object old = pse.getOldValue() == PropertyStateEvent.UNREADABLE ? null : pse.getOldValue();
+            attach(value);
+            publish(new Change(path, Change.Type.CHANGED, null, 1, old, value));
+          }
+        };
+        property.addPropertyStateListener(model, listener);
+        attach(property.isReadable(model) ? property.getValue(model) : null);
+      }
+
+      /**
+       * Publishes the changes in lists - one list for the changes made in each dispatcher tick.
+       * 
+       * @return the publisher
+       */
+      public Flow.Publisher<List<Change>> batches() {
+        return subscriber -> batches.subscribe(new Gaps<List<Change>>(subscriber, (batch, missed) -> {
+          List<Change> marked = new ArrayList<>(batch.size() + 1);
+          marked.add(overflow(missed));
+          marked.addAll(batch);
+          return Collections.unmodifiableList(marked);
+        }));
+      }
+
+      @Override
+      public void subscribe(Flow.Subscriber<? super Change> subscriber) {
+        changes.subscribe(new Gaps<Change>(subscriber, (change, missed) -> overflow(missed + 1)));
+      }
+
+      private Change overflow(long missed) {
+        return new Change(path, Change.Type.OVERFLOW, null, (int) Math.min(missed, Integer.MAX_VALUE), null, null);
+      }
+
+      /**
+       * @return the number of items dropped because a subscriber's buffer was full
+       */
+      public long getDropped() {
+        return dropped.get();
+      }
+
+      /**
+       * Stops listening to the model and completes the subscribers.
+       */
+      @Override
+      public void close() {
+        property.removePropertyStateListener(model, listener);
+        attach(null);
+        changes.close();
+        batches.close();
+      }
+
+      private void attach(Object value) {
+        if (collection instanceof org.jdesktop.observablecollections.ObservableList) {
+          ((org.jdesktop.observablecollections.ObservableList<?>) collection).removeObservableListListener(collectionListener);
+        } else if (collection instanceof org.jdesktop.observablecollections.ObservableMap) {
+          ((org.jdesktop.observablecollections.ObservableMap<?, ?>) collection).removeObservableMapListener(collectionListener);
+        }
+        collection = value;
+        if (value instanceof org.jdesktop.observablecollections.ObservableList) {
+          ((org.jdesktop.observablecollections.ObservableList<?>) value).addObservableListListener(collectionListener);
+        } else if (value instanceof org.jdesktop.observablecollections.ObservableMap) {
+          ((org.jdesktop.observablecollections.ObservableMap<?, ?>) value).addObservableMapListener(collectionListener);
+        }
+      }
+
+      private void publish(Change change) {
+        if (changes.hasSubscribers()) {
+          offer(changes, changeGaps, change);
+        }
+        if (batches.hasSubscribers()) {
+          boolean schedule;
+          synchronized (pending) {
+            schedule = pending.isEmpty();
+            pending.add(change);
+          }
+          if (schedule) {
+            dispatcher.dispatch(this::flush);
+          }
+        }
+      }
+
+      private void flush() {
+        List<Change> batch;
+        synchronized (pending) {
+          batch = Collections.unmodifiableList(new ArrayList<>(pending));
+          pending.clear();
+        }
+        if (!batch.isEmpty() && !batches.isClosed()) {
+          offer(batches, batchGaps, batch);
+        }
+      }
+
+      /**
+       * Offers the item - subscribers with a gap have it marked first (it can be delivered before
+       * offer returns) and keep the gap if they drop it too.
+       */
+      private <T> void offer(SubmissionPublisher<T> publisher, Set<Gaps<?>> gaps, T item) {
+        gaps.forEach(gap -> gap.mark(item));
+        publisher.offer(item, (subscriber, dropped) -> drop(gaps, subscriber, dropped));
+        if (!gaps.isEmpty()) {
+          gaps.removeIf(Gaps::offered);
+        }
+      }
+
+      private boolean drop(Set<Gaps<?>> gaps, Flow.Subscriber<?> subscriber, Object item) {
+        dropped.incrementAndGet();
+        if (subscriber instanceof Gaps) {
+          ((Gaps<?>) subscriber).dropped(item);
+          gaps.add((Gaps<?>) subscriber);
+        }
+        return false;
+      }
+
+      /**
+       * Passes the items on to a subscriber - the first item it gets after a gap is marked (so the
+       * items buffered before the gap still arrive as they were).
+       */
+      private static final class Gaps<T> implements Flow.Subscriber<T> {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final BiFunction<T, Long, T> mark;
+        private final Map<Object, Long> marks = Collections.synchronizedMap(new IdentityHashMap<>());
+        private long missed;
+        private boolean dropping;
+
+        private Gaps(Flow.Subscriber<? super T> subscriber, BiFunction<T, Long, T> mark) {
+          this.subscriber = subscriber;
+          this.mark = mark;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+          subscriber.onSubscribe(subscription);
+        }
+
+        private synchronized void mark(Object item) {
+          marks.put(item, missed);
+        }
+
+        private synchronized void dropped(Object item) {
+          marks.remove(item);
+          missed++;
+          dropping = true;
+        }
+
+        /**
+         * @return true if the last item offered was taken (and marked) - false if it was dropped
+         */
+        private synchronized boolean offered() {
+          if (dropping) {
+            dropping = false;
+            return false;
+          }
+          missed = 0;
+          return true;
+        }
+
+        @Override
+        public void onNext(T item) {
+          Long missed = marks.isEmpty() ? null : marks.remove(item);
+          subscriber.onNext(missed == null ? item : mark.apply(item, missed));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          subscriber.onComplete();
+        }
+
+      }
+
+      private final class CollectionListener implements ObservableListListener, ObservableMapListener {
+
+        @Override
+        public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, int length) {
+          List<?> added = list.subList(index, index + length);
+          publish(new Change(path, Change.Type.ADDED, index, length, null, new ArrayList<Object>(added)));
+        }
+
+        @Override
+        public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, @SuppressWarnings("rawtypes") List oldElements) {
+          publish(new Change(path, Change.Type.REMOVED, index, oldElements.size(), oldElements, null));
+        }
+
+        @Override
+        public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, Object oldElement) {
+          publish(new Change(path, Change.Type.REPLACED, index, 1, oldElement, list.get(index)));
+        }
+
+        @Override
+        public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index) {
+          publish(new Change(path, Change.Type.ELEMENT_CHANGED, index, 1, null, list.get(index)));
+        }
+
+        @Override
+        public void mapKeyAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableMap map, Object key) {
+          publish(new Change(path, Change.Type.ADDED, key, 1, null, map.get(key)));
+        }
+
+        @Override
+        public void mapKeyRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableMap map, Object key, Object value) {
+          publish(new Change(path, Change.Type.REMOVED, key, 1, value, null));
+        }
+
+        @Override
+        public void mapKeyValueChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableMap map, Object key, Object lastValue) {
+          publish(new Change(path, Change.Type.CHANGED, key, 1, lastValue, map.get(key)));
+        }
+
+      }
+
+    }
+
+    /*
+     * Maps and Lists
+     */
+    /**
+     * A generic Map that tracks changes - it can be used to bind values: ${mapname.property}. Be
+     * careful to have default values in the list if you depend on them (otherwise it will fail).
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <K>
+     * @param <V>
+     */
+    public static final class ObservableMap<K, V> extends HashMap<K, V> implements org.jdesktop.observablecollections.ObservableMap<K, V> {
+      private transient List<ObservableMapListener> listeners;
+      private transient int version;
+      private transient Snapshot.Frozen<Map<K, ?>> snapshot;
+      private transient Snapshot.Link link;
+      private V defValue;
+
+      public ObservableMap() {
+        super();
+      }
+
+      public ObservableMap(V defValue) {
+        super();
+        this.defValue = defValue;
+      }
+
+      private void listeners(Consumer<? super ObservableMapListener> action) {
+        listeners().forEach(action);
+      }
+
+      private List<ObservableMapListener> listeners() {
+        return (listeners == null ? listeners = new CopyOnWriteArrayList<ObservableMapListener>() : listeners);
+      }
+
+      @Override
+      public V get(Object key) {
+        return defValue == null ? super.get(key) : super.getOrDefault(key, defValue);
+      }
+
+      @Override
+      public V put(K key, V value) {
+        boolean existed = super.containsKey(key);
+        V ovalue = super.put(key, value);
+        modified();
         listeners(l -> {
-          l.listElementsRemoved(ObservableList.this, 0, dup);
+          if (!existed) {
+            l.mapKeyAdded(ObservableMap.this, key);
+          } else {
+            l.mapKeyValueChanged(ObservableMap.this, key, ovalue);
+          }
         });
+        return ovalue;
       }
 
-      public void fileElementChanged(E element) {
+      @Override
+      public void putAll(Map<? extends K, ? extends V> m) {
+        m.entrySet().forEach(e -> {
+          put(e.getKey(), e.getValue());
+        });
+      }
+
+      @Override
+      public V remove(Object key) {
+        if (!super.containsKey(key)) {
+          return null;
+        }
+        V ovalue = super.remove(key);
+        modified();
         listeners(l -> {
-          l.listElementPropertyChanged(ObservableList.this, indexOf(element));
+          l.mapKeyRemoved(ObservableMap.this, key, ovalue);
+        });
+        return ovalue;
+      }
+
+      @Override
+      public void clear() {
+        Map<K, V> dup = new LinkedHashMap<K, V>(this);
+        super.clear();
+        modified();
+        listeners(l -> {
+          dup.forEach((key, ovalue) -> l.mapKeyRemoved(ObservableMap.this, key, ovalue));
+        });
+      }
+
+      private void modified() {
+        version++;
+        if (link != null) {
+          link.changed();
+        }
+      }
+
+      /**
+       * An unmodifiable copy of this map (see {@link Model#snapshot()}) - shared with the last
+       * snapshot if nothing in it has changed.
+       * 
+       * @return the snapshot
+       */
+      public Map<K, ?> snapshot() {
+        Snapshot.Frozen<Map<K, ?>> last = snapshot;
+        Snapshot.Link link = Snapshot.link(this);
+        if (last != null && last.version == version && !link.stale) {
+          return last.value;
+        }
+        List<K> keys = new ArrayList<>(keySet());
+        return (snapshot = Snapshot.freeze(link, last, version, values().toArray(), parts -> {
+          Map<K, Object> copy = new LinkedHashMap<>();
+          for (int i = 0; i < parts.length; i++) {
+            copy.put(keys.get(i), parts[i]);
+          }
+          return Collections.unmodifiableMap(copy);
+        })).value;
+      }
+
+      @Override
+      public void addObservableMapListener(ObservableMapListener listener) {
+        listeners().add(listener);
+      }
+
+      @Override
+      public void removeObservableMapListener(ObservableMapListener listener) {
+        listeners().remove(listener);
+      }
+
+    }
+
+    /**
+     * A generic trackable list.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <E>
+     */
+    public static final class ObservableList<E> extends ArrayList<E> implements org.jdesktop.observablecollections.ObservableList<E> {
+      private transient List<ObservableListListener> listeners;
+      private transient Snapshot.Frozen<List<?>> snapshot;
+      private transient Snapshot.Link link;
+      /*
+       * Replacements - they don't count as modifications (iterators must not fail after a set).
+       */
+      private transient int replaced;
+
+      public ObservableList() {
+        super();
+      }
+
+      public ObservableList(List<E> list) {
+        super(list);
+      }
+
+      private List<ObservableListListener> listeners() {
+        return (listeners == null ? listeners = new CopyOnWriteArrayList<ObservableListListener>() : listeners);
+      }
+
+      private void listeners(Consumer<? super ObservableListListener> action) {
+        listeners().forEach(action);
+      }
+
+      public E set(int index, E element) {
+        E oldValue = super.set(index, element);
+        replaced++;
+        modified();
+        listeners(l -> {
+          l.listElementReplaced(ObservableList.this, index, oldValue);
+        });
+        return oldValue;
+      }
+
+      public void add(int index, E element) {
+        super.add(index, element);
+        modified();
+        listeners(l -> {
+          l.listElementsAdded(ObservableList.this, index, 1);
+        });
+      }
+
+      public boolean add(E element) {
+        boolean result = super.add(element);
+        modified();
+        int index = size() - 1;
+        listeners(l -> {
+          l.listElementsAdded(ObservableList.this, index, 1);
+        });
+        return result;
+      }
+
+      public E remove(int index) {
+        E oldValue = super.remove(index);
+        modified();
+        listeners(l -> {
+          l.listElementsRemoved(ObservableList.this, index, java.util.Collections.singletonList(oldValue));
         });
+        return oldValue;
+      }
+
+      public boolean addAll(int index, Collection<? extends E> c) {
+        if (super.addAll(index, c)) {
+          modified();
+          listeners(l -> {
+            l.listElementsAdded(ObservableList.this, index, c.size());
+          });
+        }
+        return true;
+      }
+
+      public boolean addAll(Collection<? extends E> c) {
+        return addAll(size(), c);
+      }
+
+      /**
+       * Removes the range with a single removed event.
+       */
+      @Override
+      public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < toIndex) {
+          List<E> dup = new ArrayList<E>(subList(fromIndex, toIndex));
+          super.removeRange(fromIndex, toIndex);
+          modified();
+          listeners(l -> {
+            l.listElementsRemoved(ObservableList.this, fromIndex, dup);
+          });
+        }
+      }
+
+      private void modified() {
+        if (link != null) {
+          link.changed();
+        }
+      }
+
+      /**
+       * Replaces the contents of this list with the new list, firing only the events needed to get
+       * there - elements are matched by key and those that keep their relative order stay in place
+       * (so selections and scroll positions survive). The rest are removed (in ranges, from the end)
+       * and inserted (in ranges, from the start) and matched elements that are no longer equal are
+       * replaced.
+       * 
+       * @param newList
+       * @param key the key of an element (should not change while the list is diffed)
+       */
+      public void replaceWith(List<? extends E> newList, Function<? super E, ?> key) {
+        List<E> next = new ArrayList<>(newList);
+        apply(diff(toArray(), next, key), next);
+      }
+
+      /**
+       * Same as {@link #replaceWith(List, Function)} for large lists - the diff is computed on a
+       * worker thread and applied on the dispatch thread (computed again there if the list changed
+       * in the mean time).
+       * 
+       * @param newList
+       * @param key the key of an element (should not change while the list is diffed)
+       * @return completed once the list has been updated
+       */
+      public CompletableFuture<Void> replaceWithAsync(List<? extends E> newList, Function<? super E, ?> key) {
+        Dispatcher dispatcher = Dispatcher.get();
+        List<E> next = new ArrayList<>(newList);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        dispatcher.run(() -> {
+          Object[] current = toArray();
+          int version = version();
+          CompletableFuture.supplyAsync(() -> diff(current, next, key), Workers.pool()).whenComplete((patch, e) -> dispatcher.run(() -> {
+            try {
+              if (e != null) {
+                done.completeExceptionally(e);
+                return;
+              }
+              apply(version() == version ? patch : diff(toArray(), next, key), next);
+              done.complete(null);
+            } catch (RuntimeException ex) {
+              done.completeExceptionally(ex);
+            }
+          }));
+        });
+        return done;
+      }
+
+      /**
+       * Which of the current and next elements stay in place - matched by key, where the matches
+       * kept are the longest run that is in the same order in both lists.
+       */
+      @SuppressWarnings("unchecked")
+      private static <E> Patch diff(Object[] current, List<E> next, Function<? super E, ?> key) {
+        Map<Object, Integer> index = new HashMap<>(current.length * 2);
+        for (int i = current.length - 1; i >= 0; i--) {
+          index.put(key.apply((E) current[i]), i);
+        }
+        int[] seq = new int[next.size()], at = new int[next.size()];
+        int count = 0;
+        for (int j = 0; j < next.size(); j++) {
+          Integer i = index.remove(key.apply(next.get(j)));
+          if (i != null) {
+            seq[count] = i;
+            at[count++] = j;
+          }
+        }
+        /*
+         * Longest increasing subsequence of the matched current indexes.
+         */
+        int[] tails = new int[count], prev = new int[count];
+        int length = 0;
+        for (int k = 0; k < count; k++) {
+          int lo = 0, hi = length;
+          while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (seq[tails[mid]] < seq[k]) {
+              lo = mid + 1;
+            } else {
+              hi = mid;
+            }
+          }
+          prev[k] = lo > 0 ? tails[lo - 1] : -1;
+          tails[lo] = k;
+          length = Math.max(length, lo + 1);
+        }
+        Patch patch = new Patch(current.length, next.size());
+        for (int k = length > 0 ? tails[length - 1] : -1; k >= 0; k = prev[k]) {
+          patch.keptCurrent[seq[k]] = true;
+          patch.keptNext[at[k]] = true;
+        }
+        return patch;
+      }
+
+      private void apply(Patch patch, List<E> next) {
+        for (int i = patch.keptCurrent.length - 1; i >= 0;) {
+          int to = i + 1;
+          while (i >= 0 && !patch.keptCurrent[i]) {
+            i--;
+          }
+          removeRange(i + 1, to);
+          i--;
+        }
+        for (int j = 0; j < next.size();) {
+          int from = j;
+          while (j < next.size() && !patch.keptNext[j]) {
+            j++;
+          }
+          if (from < j) {
+            addAll(from, next.subList(from, j));
+          }
+          j++;
+        }
+        for (int j = 0; j < next.size(); j++) {
+          E current = get(j), element = next.get(j);
+          if (patch.keptNext[j] && current != element) {
+            super.set(j, element);
+            replaced++;
+            modified();
+            if (!Objects.equals(current, element)) {
+              int index = j;
+              listeners(l -> {
+                l.listElementReplaced(ObservableList.this, index, current);
+              });
+            }
+          }
+        }
+      }
+
+      /**
+       * Changes whenever the contents do (structural modifications and replacements).
+       */
+      private int version() {
+        return modCount + replaced;
+      }
+
+      private static final class Patch {
+        private final boolean[] keptCurrent, keptNext;
+
+        private Patch(int current, int next) {
+          this.keptCurrent = new boolean[current];
+          this.keptNext = new boolean[next];
+        }
+
+      }
+
+      /**
+       * Creates a feed for producers on other threads to publish elements to this list. Elements
+       * are queued and added in batches on the dispatch thread.
+       * 
+       * @param capacity of the queue
+       * @param overflow what to do when the queue is full
+       * @param maxLength the length to trim the list to (from the head) or 0 for no limit
+       * @return the feed
+       */
+      public Feed<E> feed(int capacity, Feed.Overflow overflow, int maxLength) {
+        return new Feed<>(this, capacity, overflow, maxLength, Dispatcher.get());
+      }
+
+      /**
+       * An unmodifiable copy of this list (see {@link Model#snapshot()}) - shared with the last
+       * snapshot if nothing in it has changed.
+       * 
+       * @return the snapshot
+       */
+      public List<?> snapshot() {
+        Snapshot.Frozen<List<?>> last = snapshot;
+        int version = version();
+        Snapshot.Link link = Snapshot.link(this);
+        if (last != null && last.version == version && !link.stale) {
+          return last.value;
+        }
+        return (snapshot = Snapshot.freeze(link, last, version, toArray(), parts -> Collections.unmodifiableList(Arrays.asList(parts)))).value;
+      }
+
+      public void clear() {
+        List<E> dup = new ArrayList<E>(this);
+        super.clear();
+        modified();
+        listeners(l -> {
+          l.listElementsRemoved(ObservableList.this, 0, dup);
+        });
+      }
+
+      public void fileElementChanged(E element) {
+        listeners(l -> {
+          l.listElementPropertyChanged(ObservableList.this, indexOf(element));
+        });
+      }
+
+      public void addObservableListListener(ObservableListListener listener) {
+        listeners().add(listener);
+      }
+
+      public void removeObservableListListener(ObservableListListener listener) {
+        listeners().remove(listener);
+      }
+
+      public boolean supportsElementPropertyChanged() {
+        return true;
+      }
+
+    }
+
+    /**
+     * Publishes elements from any thread to an ObservableList. Elements go into a bounded lock free
+     * queue which is drained in one batch on the dispatch thread (one added event, and at most one
+     * removed event when the list is trimmed to its maximum length).
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <E>
+     */
+    public static final class Feed<E> {
+      private final ObservableList<E> list;
+      private final RingBuffer<E> queue;
+      private final Overflow overflow;
+      private final int maxLength;
+      private final Dispatcher dispatcher;
+      private final AtomicBoolean scheduled = new AtomicBoolean();
+      private final AtomicLong dropped = new AtomicLong(), overflowed = new AtomicLong();
+      private volatile int sampleRate = 10;
+
+      /**
+       * What publish does when the queue is full.
+       */
+      public enum Overflow {
+        /**
+         * Wait for space in the queue.
+         */
+        BLOCK,
+        /**
+         * Drop the oldest queued element.
+         */
+        DROP_OLDEST,
+        /**
+         * Keep one in every sample rate elements (dropping the oldest queued element for it) and
+         * drop the rest - the list keeps moving at an even rate.
+         */
+        SAMPLE;
+      }
+
+      public Feed(ObservableList<E> list, int capacity, Overflow overflow, int maxLength, Dispatcher dispatcher) {
+        this.list = list;
+        this.queue = new RingBuffer<>(capacity);
+        this.overflow = overflow;
+        this.maxLength = maxLength;
+        this.dispatcher = dispatcher;
+      }
+
+      /**
+       * Queues the element - safe to call from any thread.
+       * 
+       * @param element
+       * @return false if the element was dropped
+       */
+      public boolean publish(E element) {
+        boolean queued = queue.offer(element);
+        while (!queued) {
+          if (overflow == Overflow.BLOCK) {
+            LockSupport.parkNanos(100000L);
+            if (Thread.currentThread().isInterrupted()) {
+              dropped.incrementAndGet();
+              return false;
+            }
+          } else if (overflow == Overflow.SAMPLE && overflowed.incrementAndGet() % sampleRate != 0) {
+            dropped.incrementAndGet();
+            return false;
+          } else if (queue.poll() != null) {
+            dropped.incrementAndGet();
+          }
+          queued = queue.offer(element);
+        }
+        if (scheduled.compareAndSet(false, true)) {
+          dispatcher.dispatch(this::drain);
+        }
+        return true;
+      }
+
+      private void drain() {
+        scheduled.set(false);
+        List<E> batch = new ArrayList<>(queue.size());
+        for (E element = queue.poll(); element != null; element = queue.poll()) {
+          batch.add(element);
+        }
+        if (maxLength > 0 && batch.size() > maxLength) {
+          dropped.addAndGet(batch.size() - maxLength);
+          batch = batch.subList(batch.size() - maxLength, batch.size());
+        }
+        list.addAll(batch);
+        if (maxLength > 0 && list.size() > maxLength) {
+          list.removeRange(0, list.size() - maxLength);
+        }
+      }
+
+      /**
+       * @param sampleRate keep one in every sampleRate elements when the queue is full (SAMPLE)
+       */
+      public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+      }
+
+      /**
+       * @return the number of elements dropped (by the overflow policy or because they were
+       *         trimmed before they were added)
+       */
+      public long getDropped() {
+        return dropped.get();
+      }
+
+    }
+
+    /**
+     * An append only ObservableList backed by a memory mapped file - for datasets larger than the
+     * heap. Records are decoded when they are read (with a small cache of recently read records) so
+     * only what is on screen is ever in memory.
+     * 
+     * <p>
+     * Records are either a fixed length, or variable length in which case the end offset of each
+     * record is kept in an index file alongside the data ("file.idx"). Elements can only be appended
+     * (with a single added event for each append). The data is written before the index so an append
+     * that was cut short (a crash, a full disk) is trimmed off when the file is next opened.
+     * 
+     * <p>
+     * Equality is identity - comparing the contents would read every record.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <E>
+     */
+    public static final class MappedList<E> extends AbstractList<E> implements org.jdesktop.observablecollections.ObservableList<E>, Closeable {
+      private static final long SEGMENT = 1L << 28;
+      private final transient List<ObservableListListener> listeners = new CopyOnWriteArrayList<>();
+      private final Codec<E> codec;
+      private final Region data, index;
+      private final Map<Integer, E> cache;
+      private int size;
+
+      /**
+       * Reads and writes the records of a MappedList.
+       * 
+       * @param <E>
+       */
+      public interface Codec<E> {
+
+        /**
+         * @return the length of every record or -1 for variable length records
+         */
+        int length();
+
+        /**
+         * @param buffer positioned at the start of the record with its limit at the end
+         * @return the element
+         */
+        E decode(ByteBuffer buffer);
+
+        /**
+         * @param element
+         * @return the record (exactly length() bytes for fixed length records)
+         */
+        byte[] encode(E element);
+
+        /**
+         * Variable length UTF-8 strings - eg: the lines of a log.
+         */
+        static Codec<String> utf8() {
+          return new Codec<String>() {
+
+            @Override
+            public int length() {
+              return -1;
+            }
+
+            @Override
+            public String decode(ByteBuffer buffer) {
+              byte[] bytes = new byte[buffer.remaining()];
+              buffer.get(bytes);
+              return new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public byte[] encode(String element) {
+              return element.getBytes(StandardCharsets.UTF_8);
+            }
+          };
+        }
+
+      }
+
+      private MappedList(Path file, Codec<E> codec, int cacheSize) throws IOException {
+        this.codec = codec;
+        this.data = new Region(file, codec.length() > 0 ? (SEGMENT / codec.length()) * codec.length() : SEGMENT);
+        this.index = codec.length() > 0 ? null : new Region(file.resolveSibling(file.getFileName() + ".idx"), SEGMENT);
+        long records = index == null ? data.length / codec.length() : index.length / Long.BYTES;
+        if (records > Integer.MAX_VALUE) {
+          close();
+          throw new IOException("Too many records [" + records + "]");
+        }
+        /*
+         * Trim what a partly written append left behind.
+         */
+        if (index == null) {
+          data.truncate(records * codec.length());
+        } else {
+          index.truncate(records * Long.BYTES);
+          data.truncate(records == 0 ? 0 : index.readLong((records - 1) * Long.BYTES));
+        }
+        this.size = (int) records;
+        this.cache = new LinkedHashMap<Integer, E>(cacheSize, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Integer, E> eldest) {
+            return size() > cacheSize;
+          }
+        };
+      }
+
+      /**
+       * Opens (or creates) the mapped list.
+       * 
+       * @param file the data file
+       * @param codec for the records
+       * @return the list
+       * @throws IOException
+       */
+      public static <E> MappedList<E> open(Path file, Codec<E> codec) throws IOException {
+        return open(file, codec, 1024);
+      }
+
+      /**
+       * Opens (or creates) the mapped list.
+       * 
+       * @param file the data file
+       * @param codec for the records
+       * @param cacheSize the number of decoded records to cache
+       * @return the list
+       * @throws IOException
+       */
+      public static <E> MappedList<E> open(Path file, Codec<E> codec, int cacheSize) throws IOException {
+        return new MappedList<>(file, codec, cacheSize);
+      }
+
+      @Override
+      public synchronized E get(int i) {
+        if (i < 0 || i >= size) {
+          throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        E element = cache.get(i);
+        if (element == null) {
+          try {
+            long start, end;
+            if (index == null) {
+              start = (long) i * codec.length();
+              end = start + codec.length();
+            } else {
+              start = i == 0 ? 0 : index.readLong((long) (i - 1) * Long.BYTES);
+              end = index.readLong((long) i * Long.BYTES);
+            }
+            cache.put(i, element = codec.decode(data.read(start, (int) (end - start))));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+        return element;
+      }
+
+      @Override
+      public synchronized int size() {
+        return size;
+      }
+
+      @Override
+      public void add(int index, E element) {
+        if (index != size()) {
+          throw new UnsupportedOperationException("Elements can only be appended");
+        }
+        addAll(Collections.singletonList(element));
+      }
+
+      @Override
+      public boolean addAll(int index, Collection<? extends E> c) {
+        if (index != size()) {
+          throw new UnsupportedOperationException("Elements can only be appended");
+        }
+        return addAll(c);
+      }
+
+      /**
+       * Appends the elements to the file (one added event for all of them).
+       */
+      @Override
+      public boolean addAll(Collection<? extends E> c) {
+        if (c.isEmpty()) {
+          return false;
+        }
+        int first;
+        synchronized (this) {
+          first = size;
+          ByteBuffer offsets = index == null ? null : ByteBuffer.allocate(c.size() * Long.BYTES);
+          ByteArrayOutputStream records = new ByteArrayOutputStream();
+          for (E element : c) {
+            byte[] record = codec.encode(element);
+            if (codec.length() > 0 && record.length != codec.length()) {
+              throw new IllegalArgumentException("Record length [" + record.length + "] should be [" + codec.length() + "]");
+            }
+            records.write(record, 0, record.length);
+            if (offsets != null) {
+              offsets.putLong(data.length + records.size());
+            }
+          }
+          long dataLength = data.length, indexLength = index == null ? 0 : index.length;
+          try {
+            data.append(ByteBuffer.wrap(records.toByteArray()));
+            if (offsets != null) {
+              offsets.flip();
+              index.append(offsets);
+            }
+          } catch (IOException e) {
+            try {
+              data.truncate(dataLength);
+              if (index != null) {
+                index.truncate(indexLength);
+              }
+            } catch (IOException suppressed) {
+              e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(e);
+          }
+          size += c.size();
+          modCount++;
+        }
+        listeners.forEach(l -> l.listElementsAdded(this, first, c.size()));
+        return true;
+      }
+
+      @Override
+      public void addObservableListListener(ObservableListListener listener) {
+        listeners.add(listener);
+      }
+
+      @Override
+      public void removeObservableListListener(ObservableListListener listener) {
+        listeners.remove(listener);
+      }
+
+      @Override
+      public boolean supportsElementPropertyChanged() {
+        return false;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+        return o == this;
+      }
+
+      @Override
+      public int hashCode() {
+        return System.identityHashCode(this);
+      }
+
+      @Override
+      public void close() throws IOException {
+        data.close();
+        if (index != null) {
+          index.close();
+        }
+      }
+
+      /**
+       * A file mapped in segments (a single mapping is limited to 2GB) - the last segment is
+       * remapped as the file grows.
+       */
+      private static final class Region implements Closeable {
+        private final FileChannel channel;
+        private final long segment;
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+        private long length;
+
+        private Region(Path file, long segment) throws IOException {
+          this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+          this.segment = segment;
+          this.length = channel.size();
+        }
+
+        private MappedByteBuffer segment(int i, long end) throws IOException {
+          while (segments.size() <= i) {
+            segments.add(null);
+          }
+          MappedByteBuffer buffer = segments.get(i);
+          long start = i * segment;
+          if (buffer == null || start + buffer.capacity() < end) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segment, length - start));
+            segments.set(i, buffer);
+          }
+          return buffer;
+        }
+
+        /**
+         * @return the bytes at the position - a view of the mapping unless the bytes span two
+         *         segments (in which case they are copied)
+         */
+        private ByteBuffer read(long position, int count) throws IOException {
+          int first = (int) (position / segment), last = (int) ((position + Math.max(count, 1) - 1) / segment);
+          if (first == last) {
+            ByteBuffer buffer = segment(first, position + count).duplicate();
+            buffer.position((int) (position - first * segment));
+            buffer.limit(buffer.position() + count);
+            return buffer.slice();
+          }
+          ByteBuffer copy = ByteBuffer.allocate(count);
+          for (int i = first; i <= last; i++) {
+            ByteBuffer buffer = segment(i, Math.min((i + 1) * segment, position + count)).duplicate();
+            buffer.position((int) Math.max(0, position - i * segment));
+            buffer.limit((int) Math.min(buffer.capacity(), position + count - i * segment));
+            copy.put(buffer);
+          }
+          copy.flip();
+          return copy;
+        }
+
+        private long readLong(long position) throws IOException {
+          return read(position, Long.BYTES).getLong();
+        }
+
+        private void append(ByteBuffer buffer) throws IOException {
+          while (buffer.hasRemaining()) {
+            length += channel.write(buffer, length);
+          }
+        }
+
+        /**
+         * Cuts the file back to the length (nothing mapped past it is read again).
+         */
+        private void truncate(long length) throws IOException {
+          if (length < this.length) {
+            segments.clear();
+            channel.truncate(length);
+            this.length = length;
+          }
+        }
+
+        @Override
+        public void close() throws IOException {
+          segments.clear();
+          channel.close();
+        }
+
+      }
+
+    }
+
+    /*
+     * Computed properties
+     */
+    /**
+     * Declares a read only property that is computed from other properties of this model. The value
+     * is cached and only recomputed (when next read) after one of the dependencies changes - a
+     * property change event is fired for <b>name</b> when the recomputed value differs.
+     * 
+     * <p>
+     * Dependencies are property paths "price", "address.postcode" or the path of an ObservableList
+     * or ObservableMap (in which case changes to the collection also count). The field should be
+     * transient so it is not serialized with the model:
+     * 
+     * <pre>
+     * {@code
+     *   private transient Computed<Double> total = computed("total", () -> price * quantity, "price", "quantity");
+     *   
+     *   public Double getTotal(){
+     *       return total.get();
+     *   }
+     * }
+     * </pre>
+     * 
+     * @param name of the computed property
+     * @param function computing the value
+     * @param dependsOn property paths the value is computed from
+     * @return the computed property
+     */
+    protected <T> Computed<T> computed(String name, Supplier<T> function, String... dependsOn) {
+      return new Computed<>(this, name, function, dependsOn);
+    }
+
+    /**
+     * Declares a read only property holding an aggregate (sum, count, min or max) of the elements of
+     * an ObservableList. The aggregate is maintained incrementally as the list changes, min and max
+     * are only rescanned when the current extreme is removed.
+     * 
+     * @param name of the computed property
+     * @param list to aggregate
+     * @param type of aggregate
+     * @param value of each element
+     * @return the computed property
+     */
+    protected <E> Computed<Double> aggregate(String name, org.jdesktop.observablecollections.ObservableList<E> list, Aggregate.Type type, ToDoubleFunction<? super E> value) {
+      Aggregate<E> aggregate = new Aggregate<>(list, type, value);
+      Computed<Double> computed = new Computed<>(this, name, aggregate::get);
+      aggregate.onChange = computed::invalidate;
+      return computed;
+    }
+
+    /**
+     * A cached property value computed from other properties of a model.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <T>
+     */
+    public static final class Computed<T> {
+      private final Model model;
+      private final String name;
+      private final Supplier<T> function;
+      private final String[] dependsOn;
+      private boolean attached, dirty = true;
+      private T value;
+
+      private Computed(Model model, String name, Supplier<T> function, String... dependsOn) {
+        this.model = model;
+        this.name = name;
+        this.function = function;
+        this.dependsOn = dependsOn;
+      }
+
+      /**
+       * The dependencies are attached on the first read (rather than in the constructor) so the
+       * model is fully constructed.
+       */
+      private void attach() {
+        attached = true;
+        for (String path : dependsOn) {
+          new Dependency(path);
+        }
+      }
+
+      /**
+       * @return the current value - recomputing it if any of the dependencies have changed
+       */
+      public synchronized T get() {
+        if (!attached) {
+          attach();
+        }
+        if (dirty) {
+          value = function.get();
+          dirty = false;
+        }
+        return value;
+      }
+
+      /**
+       * Marks the value as changed, it is recomputed straight away if anyone is listening to the
+       * model - otherwise on the next read.
+       */
+      public void invalidate() {
+        T oldValue, newValue;
+        synchronized (this) {
+          if (dirty) {
+            return;
+          }
+          dirty = true;
+          if (!model.observed(name)) {
+            return;
+          }
+          oldValue = value;
+          newValue = get();
+        }
+        if (!Objects.deepEquals(oldValue, newValue)) {
+          model.propertyChanged(name, oldValue, newValue);
+        }
+      }
+
+      private final class Dependency implements PropertyStateListener, ObservableListListener, ObservableMapListener {
+        private Object collection;
+
+        private Dependency(String path) {
+          Property<Model, Object> property = BeanProperty.create(path);
+          PropertyChangeListener[] before = model.getPropertyChangeListeners();
+          property.addPropertyStateListener(model, this);
+          model.dependency(before, path.split("\\.")[0]);
+          observe(property.isReadable(model) ? property.getValue(model) : null);
+        }
+
+        private void observe(Object value) {
+          if (collection instanceof org.jdesktop.observablecollections.ObservableList<?>) {
+            ((org.jdesktop.observablecollections.ObservableList<?>) collection).removeObservableListListener(this);
+          } else if (collection instanceof org.jdesktop.observablecollections.ObservableMap<?, ?>) {
+            ((org.jdesktop.observablecollections.ObservableMap<?, ?>) collection).removeObservableMapListener(this);
+          }
+          collection = value;
+          if (collection instanceof org.jdesktop.observablecollections.ObservableList<?>) {
+            ((org.jdesktop.observablecollections.ObservableList<?>) collection).addObservableListListener(this);
+          } else if (collection instanceof org.jdesktop.observablecollections.ObservableMap<?, ?>) {
+            ((org.jdesktop.observablecollections.ObservableMap<?, ?>) collection).addObservableMapListener(this);
+          }
+        }
+
+        @Override
+        public void propertyStateChanged(PropertyStateEvent pse) {
+          if (pse.getValueChanged()) {
+            observe(pse.getNewValue());
+            invalidate();
+          }
+        }
+
+        @Override
+        public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, int length) {
+          invalidate();
+        }
+
+        @Override
+        public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, @SuppressWarnings("rawtypes") List oldElements) {
+          invalidate();
+        }
+
+        @Override
+        public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, Object oldElement) {
+          invalidate();
+        }
+
+        @Override
+        public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index) {
+          invalidate();
+        }
+
+        @Override
+        public void mapKeyAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableMap map, Object key) {
+          invalidate();
+        }
+
+        @Override
+        public void mapKeyRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableMap map, Object key, Object value) {
+          invalidate();
+        }
+
+        @Override
+        public void mapKeyValueChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableMap map, Object key, Object lastValue) {
+          invalidate();
+        }
+      }
+
+    }
+
+    /**
+     * Incremental aggregate of the elements of an ObservableList. A copy of each element's value is
+     * kept so removals and replacements don't need to rescan the list.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <E>
+     */
+    public static final class Aggregate<E> implements ObservableListListener {
+      private final org.jdesktop.observablecollections.ObservableList<E> list;
+      private final Type type;
+      private final ToDoubleFunction<? super E> value;
+      private double[] values = new double[16];
+      private int size;
+      private double sum, extreme;
+      private boolean extremeValid;
+      private transient Runnable onChange;
+
+      public enum Type {
+        SUM, COUNT, MIN, MAX;
+      }
+
+      public Aggregate(org.jdesktop.observablecollections.ObservableList<E> list, Type type, ToDoubleFunction<? super E> value) {
+        this.list = list;
+        this.type = type;
+        this.value = value;
+        insert(0, list.size());
+        list.addObservableListListener(this);
+      }
+
+      public synchronized double get() {
+        switch (type) {
+          case SUM:
+            return sum;
+          case COUNT:
+            return size;
+          default:
+            if (!extremeValid) {
+              extreme = type == Type.MIN ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+              for (int i = 0; i < size; i++) {
+                extreme = better(values[i], extreme) ? values[i] : extreme;
+              }
+              extremeValid = true;
+            }
+            return size == 0 ? Double.NaN : extreme;
+        }
+      }
+
+      /**
+       * Stop tracking the list.
+       */
+      public void dispose() {
+        list.removeObservableListListener(this);
+      }
+
+      private boolean better(double a, double b) {
+        return type == Type.MIN ? a < b : a > b;
+      }
+
+      private void insert(int index, int length) {
+        if (size + length > values.length) {
+          values = Arrays.copyOf(values, Math.max(size + length, values.length * 2));
+        }
+        System.arraycopy(values, index, values, index + length, size - index);
+        size += length;
+        for (int i = index; i < index + length; i++) {
+          added(values[i] = value.applyAsDouble(list.get(i)));
+        }
+      }
+
+      private void added(double v) {
+        sum += v;
+        if (extremeValid && better(v, extreme)) {
+          extreme = v;
+        }
+      }
+
+      private void removed(double v) {
+        sum -= v;
+        if (extremeValid && v == extreme) {
+          extremeValid = false;
+        }
+      }
+
+      private void changed() {
+        if (onChange != null) {
+          onChange.run();
+        }
+      }
+
+      @Override
+      public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, int length) {
+        synchronized (this) {
+          insert(index, length);
+        }
+        changed();
+      }
+
+      @Override
+      public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, @SuppressWarnings("rawtypes") List oldElements) {
+        synchronized (this) {
+          int length = oldElements.size();
+          for (int i = index; i < index + length; i++) {
+            removed(values[i]);
+          }
+          System.arraycopy(values, index + length, values, index, size - index - length);
+          size -= length;
+        }
+        changed();
+      }
+
+      @Override
+      public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, Object oldElement) {
+        listElementPropertyChanged(list, index);
+      }
+
+      @Override
+      public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index) {
+        synchronized (this) {
+          removed(values[index]);
+          added(values[index] = value.applyAsDouble(this.list.get(index)));
+        }
+        changed();
+      }
+
+    }
+
+  }
+
+  public abstract static class Controller<M> {
+    /**
+     * This is the model, it is protected so it can be referred to directly which reduces the amount
+     * of code.
+     */
+    protected M m;
+
+    public Controller(M model) {
+      this.m = model;
+    }
+
+    private transient final List<Binder> binders = Collections.synchronizedList(new ArrayList<>());
+
+    public class Binder {
+      private transient BindingGroup binding = new BindingGroup();
+      private String name;
+
+      public Binder(String name) {
+        this.name = name;
+      }
+
+      /**
+       * Two way binding between the source property (of the model) and the target property of the
+       * target object (usually a UI control).
+       * 
+       * <p>
+       * Source and target properties can be provided as the property name "property" or an
+       * expression "${property > 0}"
+       * 
+       * @param srcProperty source property name or expression eg: "${prop}"
+       * @param trg target Object (usually a UI control)
+       * @param trgProperty target property name or expression eg: "${prop}"
+       * @return target Object
+       */
+      public <T> T bindModelProperty(String srcProperty, T trg, String trgProperty) {
+        binding.addBinding(Bindings.createAutoBinding(AutoBinding.UpdateStrategy.READ_WRITE, m, createProperty(srcProperty), trg, changeAware(createProperty(trgProperty), srcProperty)));
+        return trg;
+      }
+
+      /**
+       * One way binding between the source property (of the model) and the target property of the
+       * target object (usually a UI control).
+       * 
+       * <p>
+       * Typically used to write a model property (changed by the controller) to the UI.
+       * 
+       * <p>
+       * Source and target properties can be provided as the property name "property" or an
+       * expression "${property > 0}"
+       * 
+       * @param srcProperty source property name or expression eg: "${prop}"
+       * @param trg target Object (usually a UI control)
+       * @param trgProperty target property name or expression eg: "${prop}"
+       * @return target Object
+       */
+      public <T> T readModelProperty(String srcProperty, T trg, String trgProperty) {
+        binding.addBinding(Bindings.createAutoBinding(AutoBinding.UpdateStrategy.READ, m, createProperty(srcProperty), trg, changeAware(createProperty(trgProperty), srcProperty)));
+        return trg;
+      }
+
+      /**
+       * One way binding between the source property of the source object (usually a UI control) and
+       * the target property of the model.
+       * 
+       * <p>
+       * Typically used to write a model property from some event in the UI.
+       * 
+       * <p>
+       * Source and target properties can be provided as the property name "property" or an
+       * expression "${property > 0}"
+       * 
+       * @param srcProperty source property name or expression eg: "${prop}"
+       * @param src source Object (usually a UI control)
+       * @param trgProperty target property name or expression eg: "${prop}"
+       * @return source Object
+       */
+      public <T> T writeModelProperty(String srcProperty, T src, String trgProperty) {
+        binding.addBinding(Bindings.createAutoBinding(AutoBinding.UpdateStrategy.READ, src, createProperty(trgProperty), m, changeAware(createProperty(srcProperty), srcProperty)));
+        return src;
+      }
+
+      /**
+       * Wraps the target property of a binding so values equal to the value it already holds are not
+       * written again - using the equality of the model property.
+       */
+      private <S, V> Property<S, V> changeAware(Property<S, V> target, String modelProperty) {
+        BiPredicate<Object, Object> equality = Objects::deepEquals;
+        if (!modelProperty.contains("${")) {
+          int dot = modelProperty.lastIndexOf('.');
+          try {
+            Object owner = dot < 0 ? m : createProperty(modelProperty.substring(0, dot)).getValue(m);
+            if (owner instanceof Model) {
+              equality = ((Model) owner).getEquality(modelProperty.substring(dot + 1));
+            }
+          } catch (RuntimeException e) {
+            // the default will do
+          }
+        }
+        return new ChangeAwareProperty<>(target, equality);
+      }
+
+      /*
+       * SWING BINDINGS
+       */
+
+      /**
+       * Binds the list property of the model to the target JList.
+       * 
+       * @param listName list source property name or expression eg: "${mylists.listone}"
+       * @param target the JList
+       * @return the JList (allows for chaining)
+       */
+      public <T> JList<T> bindModelList(String listName, JList<T> target) {
+        try {
+          @SuppressWarnings("unchecked")
+          List<T> list = (List<T>) createProperty(listName).getValue(m);
+          if (list instanceof Model.MappedList<?>) {
+            binding.addBinding(new ListModelBinding<>((Model.MappedList<T>) list, target));
+          } else {
+            binding.addBinding(SwingBindings.createJListBinding(AutoBinding.UpdateStrategy.READ_WRITE, list, target));
+          }
+        } catch (IllegalArgumentException | SecurityException e) {
+          log(Level.SEVERE, e, null);
+        }
+        return target;
+      }
+
+      /**
+       * Binds the list property of the model to the target JComboBox.
+       * 
+       * @param listProperty list source property name or expression eg: "${mylists.listone}"
+       * @param target JCombobox
+       * @return the JCombobox (allows for chaining)
+       */
+      public <T> JComboBox<T> bindModelList(String listProperty, JComboBox<T> target) {
+        try {
+          @SuppressWarnings("unchecked")
+          List<T> list = (List<T>) createProperty(listProperty).getValue(m);
+          binding.addBinding(SwingBindings.createJComboBoxBinding(AutoBinding.UpdateStrategy.READ_WRITE, list, target));
+        } catch (IllegalArgumentException | SecurityException e) {
+          log(Level.SEVERE, e, null);
+        }
+        return target;
+      }
+
+      /**
+       * Binds the list property of the model to the target JComboBox. Sets the property defined by
+       * selectedProperty to the selected value of the ComboBox.
+       * 
+       * @param listProperty list property name or expression eg: "${customers}"
+       * @param selectedProperty selected property name or expression eg:"${selectedCustomer}"
+       * @param target JComboBox to bind
+       * @return the JCombobox (allows for chaining)
+       */
+      public <T> JComboBox<T> bindModelList(String listProperty, String selectedProperty, JComboBox<T> target) {
+        JComboBox<T> box = bindModelList(listProperty, target);
+        bindModelProperty(selectedProperty, target, "${selectedItem}");
+        return box;
+      }
+
+      /**
+       * Binds the list property of the model to the target JTable - one row per element with the
+       * values read by the columns.
+       * 
+       * @param listProperty list property name or expression eg: "${customers}"
+       * @param target the JTable
+       * @param columns
+       * @return the JTable (allows for chaining)
+       */
+      @SafeVarargs
+      @SuppressWarnings("varargs")
+      public final <T> JTable bindModelTable(String listProperty, JTable target, Column<T, ?>... columns) {
+        return bindModelTable(listProperty, target, false, columns);
+      }
+
+      /**
+       * Binds the list property of the model to the target JTable - one row per element with the
+       * values read by the columns. When sortable the values read are cached (until the row changes)
+       * and a TableRowSorter is installed - so sorting and filtering don't read every cell again.
+       * 
+       * @param listProperty list property name or expression eg: "${customers}"
+       * @param target the JTable
+       * @param sortable cache values and install a row sorter
+       * @param columns
+       * @return the JTable (allows for chaining)
+       */
+      @SafeVarargs
+      public final <T> JTable bindModelTable(String listProperty, JTable target, boolean sortable, Column<T, ?>... columns) {
+        /*
+         * Copied element by element - the varargs array itself never leaves the method.
+         */
+        List<Column<T, ?>> list = new ArrayList<>(columns.length);
+        for (Column<T, ?> column : columns) {
+          list.add(column);
+        }
+        return bindModelTable(listProperty, target, sortable, list);
+      }
+
+      private <T> JTable bindModelTable(String listProperty, JTable target, boolean sortable, List<Column<T, ?>> columns) {
+        try {
+          @SuppressWarnings("unchecked")
+          org.jdesktop.observablecollections.ObservableList<T> list = (org.jdesktop.observablecollections.ObservableList<T>) createProperty(listProperty).getValue(m);
+          binding.addBinding(new TableModelBinding<>(new ObservableTableModel<>(list, sortable, columns), target, sortable));
+        } catch (IllegalArgumentException | SecurityException | ClassCastException e) {
+          log(Level.SEVERE, e, null);
+        }
+        return target;
+      }
+
+      /*
+       * VALIDATION
+       */
+      private final Model.ObservableMap<String, Validation> validation = new Model.ObservableMap<>(Validation.VALID);
+      private final Map<String, FieldValidation> validators = new LinkedHashMap<>();
+      private final Map<String, Validation> results = new LinkedHashMap<>();
+      private final Map<String, FieldState> states = new HashMap<>();
+      private final List<Runnable> registrations = new CopyOnWriteArrayList<>();
+
+      /**
+       * Two way binding (as {@link #bindModelProperty(String, Object, String)}) where the model
+       * property is also validated by <b>validator</b> whenever it changes.
+       * 
+       * @param srcProperty source property name eg: "prop"
+       * @param trg target Object (usually a UI control)
+       * @param trgProperty target property name or expression eg: "${prop}"
+       * @param validator run off the EDT with the new value
+       * @return target Object
+       */
+      public <T, V> T bindModelProperty(String srcProperty, T trg, String trgProperty, Validator<V> validator) {
+        validate(srcProperty, validator);
+        return bindModelProperty(srcProperty, trg, trgProperty);
+      }
+
+      /**
+       * Validates the model property whenever it changes, the result is stored in
+       * {@link #getValidation()} with the property as the key.
+       * 
+       * @param property model property name eg: "address.postcode"
+       * @param validator run off the EDT with the new value
+       * @return this binder
+       */
+      @SuppressWarnings("unchecked")
+      public <V> Binder validate(String property, Validator<V> validator) {
+        return validate(property, new String[] {property}, values -> validator.validate((V) values[0]));
+      }
+
+      /**
+       * Validates a rule across several model properties. The rule is only run again when one of
+       * the properties changes, the result is stored in {@link #getValidation()} under <b>key</b>.
+       * 
+       * @param key of the result
+       * @param properties model property names the rule reads
+       * @param validator run off the EDT with the values of the properties (in order)
+       * @return this binder
+       */
+      public Binder validate(String key, String[] properties, Validator<Object[]> validator) {
+        FieldValidation field = new FieldValidation(key, properties, validator);
+        synchronized (validators) {
+          validators.put(key, field);
+        }
+        for (String property : properties) {
+          Property<Object, Object> source = createProperty(property);
+          PropertyStateListener listener = pse -> {
+            if (pse.getValueChanged()) {
+              field.run();
+            }
+          };
+          source.addPropertyStateListener(m, listener);
+          registrations.add(() -> source.removePropertyStateListener(m, listener));
+        }
+        return this;
+      }
+
+      /**
+       * The current validation state of each validated property (or rule) - this is updated on the
+       * EDT and can be observed or bound to by the view, missing keys are valid.
+       * 
+       * @return key to validation
+       */
+      public Model.ObservableMap<String, Validation> getValidation() {
+        return validation;
+      }
+
+      /**
+       * One way binding from the validation state of <b>key</b> to the target property of the target
+       * object eg: readValidation("name", label, "text", "message").
+       * 
+       * @param key of the validated property or rule
+       * @param trg target Object (usually a UI control)
+       * @param trgProperty target property name or expression eg: "${prop}"
+       * @param validationProperty property of the {@link Validation} "valid" or "message"
+       * @return target Object
+       */
+      public <T> T readValidation(String key, T trg, String trgProperty, String validationProperty) {
+        FieldState state;
+        synchronized (states) {
+          state = states.computeIfAbsent(key, k -> new FieldState(validation.get(k)));
+        }
+        binding.addBinding(Bindings.createAutoBinding(AutoBinding.UpdateStrategy.READ, state, createProperty("validation." + validationProperty), trg, createProperty(trgProperty)));
+        return trg;
+      }
+
+      /**
+       * Holds the validation of a single key for binding - the keys are usually property paths which
+       * can't be used in a binding expression on the map.
+       */
+      public final class FieldState extends Model {
+        private Validation validation;
+
+        private FieldState(Validation validation) {
+          this.validation = validation;
+        }
+
+        public Validation getValidation() {
+          return validation;
+        }
+
+        private void setValidation(Validation validation) {
+          propertyChanged("validation", this.validation, this.validation = validation);
+        }
+      }
+
+      /**
+       * Results are collected from the workers and applied to the validation map in one go.
+       */
+      private void post(String key, Validation result) {
+        boolean schedule;
+        synchronized (results) {
+          schedule = results.isEmpty();
+          results.put(key, result);
+        }
+        if (schedule) {
+          getDispatcher().dispatch(() -> {
+            Map<String, Validation> batch;
+            synchronized (results) {
+              batch = new LinkedHashMap<>(results);
+              results.clear();
+            }
+            validation.putAll(batch);
+            synchronized (states) {
+              batch.forEach((k, v) -> Optional.ofNullable(states.get(k)).ifPresent(state -> state.setValidation(v)));
+            }
+          });
+        }
+      }
+
+      private final class FieldValidation {
+        private final String key;
+        private final String[] properties;
+        private final Validator<Object[]> validator;
+        private Object[] inputs;
+        private Future<?> running;
+        private int generation;
+
+        private FieldValidation(String key, String[] properties, Validator<Object[]> validator) {
+          this.key = key;
+          this.properties = properties;
+          this.validator = validator;
+        }
+
+        private synchronized void cancel() {
+          if (running != null) {
+            running.cancel(true);
+          }
+        }
+
+        /**
+         * Called on the EDT - reads the inputs and (if they have changed) replaces any running
+         * validation with a new one.
+         */
+        private synchronized void run() {
+          Object[] values = new Object[properties.length];
+          for (int i = 0; i < properties.length; i++) {
+            Property<Object, Object> property = createProperty(properties[i]);
+            values[i] = property.isReadable(m) ? property.getValue(m) : null;
+          }
+          if (inputs != null && Arrays.deepEquals(values, inputs)) {
+            return;
+          }
+          inputs = values;
+          cancel();
+          int current = ++generation;
+          running = Workers.pool().submit(() -> {
+            Validation result;
+            try {
+              result = validator.validate(values);
+            } catch (InterruptedException e) {
+              return;
+            } catch (Exception e) {
+              log(Level.WARNING, e, () -> "Error validating [" + key + "]");
+              result = Validation.invalid(e.getMessage());
+            }
+            /*
+             * Checked and posted under the lock - a newer validation can't start (and post) in between.
+             */
+            synchronized (FieldValidation.this) {
+              if (current == generation) {
+                post(key, result == null ? Validation.VALID : result);
+              }
+            }
+          });
+        }
+      }
+
+      /**
+       * Binds an ObservableList to a JList through a plain ListModel that reads elements on demand
+       * and forwards the list events - the swing binding keeps an entry per element which is too
+       * much for a MappedList.
+       */
+      private final class ListModelBinding<T> extends org.jdesktop.beansbinding.Binding<Object, Object, Object, Object> {
+        private final ObservableListModel<T> model;
+        private final JList<T> target;
+
+        private ListModelBinding(org.jdesktop.observablecollections.ObservableList<T> list, JList<T> target) {
+          super(list, ObjectProperty.create(), target, ObjectProperty.create(), null);
+          this.model = new ObservableListModel<>(list);
+          this.target = target;
+        }
+
+        @Override
+        protected void bindImpl() {
+          model.list.addObservableListListener(model);
+          target.setModel(model);
+        }
+
+        @Override
+        protected void unbindImpl() {
+          model.list.removeObservableListListener(model);
+        }
+
+      }
+
+      /**
+       * Binds an ObservableList to a JTable through an ObservableTableModel.
+       */
+      private final class TableModelBinding<T> extends org.jdesktop.beansbinding.Binding<Object, Object, Object, Object> {
+        private final ObservableTableModel<T> model;
+        private final JTable target;
+        private final boolean sortable;
+
+        private TableModelBinding(ObservableTableModel<T> model, JTable target, boolean sortable) {
+          super(model.list, ObjectProperty.create(), target, ObjectProperty.create(), null);
+          this.model = model;
+          this.target = target;
+          this.sortable = sortable;
+        }
+
+        @Override
+        protected void bindImpl() {
+          model.reset();
+          model.list.addObservableListListener(model);
+          target.setModel(model);
+          if (sortable) {
+            target.setRowSorter(new TableRowSorter<>(model));
+          }
+        }
+
+        @Override
+        protected void unbindImpl() {
+          model.list.removeObservableListListener(model);
+        }
+
+      }
+
+      public void bind() {
+        binding.bind();
+        List<FieldValidation> fields;
+        synchronized (validators) {
+          fields = new ArrayList<>(validators.values());
+        }
+        fields.forEach(FieldValidation::run);
+      }
+
+      /**
+       * Unbind this binder
+       */
+      public void unbind() {
+        binding.unbind();
+      }
+
+      /**
+       * Unbind this and remove it from the binders
+       */
+      public void dispose() {
+        unbind();
+        registrations.forEach(Runnable::run);
+        registrations.clear();
+        synchronized (validators) {
+          validators.values().forEach(FieldValidation::cancel);
+          validators.clear();
+        }
+        binders.remove(this);
+      }
+
+      @Override
+      public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((name == null) ? 0 : name.hashCode());
+        return result;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+        if (this == obj) {
+          return true;
+        }
+        if (obj == null) {
+          return false;
+        }
+        if (getClass() != obj.getClass()) {
+          return false;
+        }
+        @SuppressWarnings("unchecked")
+        Binder other = (Binder) obj;
+        if (name == null) {
+          if (other.name != null) {
+            return false;
+          }
+        } else if (!name.equals(other.name)) {
+          return false;
+        }
+        return true;
+      }
+
+    }
+
+    /**
+     * A property that reads the current value of its object before writing and skips writing an
+     * equal value - so controls aren't updated, revalidated and repainted for nothing. The current
+     * value is read every time as the object can change without telling anyone.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <S>
+     * @param <V>
+     */
+    private static final class ChangeAwareProperty<S, V> extends Property<S, V> {
+      private final Property<S, V> delegate;
+      private final BiPredicate<Object, Object> equality;
+      private final Map<PropertyStateListener, PropertyStateListener> adapters = new IdentityHashMap<>();
+
+      private ChangeAwareProperty(Property<S, V> delegate, BiPredicate<Object, Object> equality) {
+        this.delegate = delegate;
+        this.equality = equality;
+      }
+
+      @Override
+      public Class<? extends V> getWriteType(S source) {
+        return delegate.getWriteType(source);
+      }
+
+      @Override
+      public V getValue(S source) {
+        return delegate.getValue(source);
+      }
+
+      @Override
+      public void setValue(S source, V value) {
+        if (delegate.isReadable(source) && equality.test(delegate.getValue(source), value)) {
+          return;
+        }
+        delegate.setValue(source, value);
+      }
+
+      @Override
+      public boolean isReadable(S source) {
+        return delegate.isReadable(source);
+      }
+
+      @Override
+      public boolean isWriteable(S source) {
+        return delegate.isWriteable(source);
+      }
+
+      @Override
+      public synchronized void addPropertyStateListener(S source, PropertyStateListener listener) {
+        PropertyStateListener adapter = pse -> {
+          if (pse.getValueChanged()) {
+            listener.propertyStateChanged(new PropertyStateEvent(this, pse.getSourceObject(), true, pse.getOldValue(), pse.getNewValue(), pse.getWriteableChanged(), pse.getWriteableChanged() && pse.isWriteable()));
+          } else {
+            listener.propertyStateChanged(new PropertyStateEvent(this, pse.getSourceObject(), false, null, null, pse.getWriteableChanged(), pse.getWriteableChanged() && pse.isWriteable()));
+          }
+        };
+        adapters.put(listener, adapter);
+        delegate.addPropertyStateListener(source, adapter);
+      }
+
+      @Override
+      public synchronized void removePropertyStateListener(S source, PropertyStateListener listener) {
+        PropertyStateListener adapter = adapters.remove(listener);
+        if (adapter != null) {
+          delegate.removePropertyStateListener(source, adapter);
+        }
+      }
+
+      @Override
+      public synchronized PropertyStateListener[] getPropertyStateListeners(S source) {
+        return adapters.keySet().toArray(new PropertyStateListener[adapters.size()]);
+      }
+
+    }
+
+    /**
+     * A ListModel over an ObservableList - elements are read when they are displayed.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <E>
+     */
+    public static class ObservableListModel<E> extends AbstractListModel<E> implements ObservableListListener {
+      private static final long serialVersionUID = 1L;
+      private final org.jdesktop.observablecollections.ObservableList<E> list;
+
+      public ObservableListModel(org.jdesktop.observablecollections.ObservableList<E> list) {
+        this.list = list;
+      }
+
+      @Override
+      public int getSize() {
+        return list.size();
+      }
+
+      @Override
+      public E getElementAt(int index) {
+        return list.get(index);
+      }
+
+      @Override
+      public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, int length) {
+        fireIntervalAdded(this, index, index + length - 1);
+      }
+
+      @Override
+      public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, @SuppressWarnings("rawtypes") List oldElements) {
+        fireIntervalRemoved(this, index, index + oldElements.size() - 1);
+      }
+
+      @Override
+      public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, Object oldElement) {
+        fireContentsChanged(this, index, index);
+      }
+
+      @Override
+      public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index) {
+        fireContentsChanged(this, index, index);
+      }
+
+    }
+
+    /**
+     * A TableModel over an ObservableList - each list event is fired as the narrowest table event
+     * (rows inserted, deleted or updated). Elements are read when they are displayed and when
+     * caching the values read are kept (for sorting and filtering) until the row changes. Changes to
+     * the properties of an element reach the table through
+     * {@link Model.ObservableList#fileElementChanged(Object)}.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <E>
+     */
+    public static class ObservableTableModel<E> extends AbstractTableModel implements ObservableListListener {
+      private static final long serialVersionUID = 1L;
+      private static final Object UNREAD = new Object();
+      private final org.jdesktop.observablecollections.ObservableList<E> list;
+      private final List<Column<E, ?>> columns;
+      private final List<Object[]> cache;
+
+      public ObservableTableModel(org.jdesktop.observablecollections.ObservableList<E> list, boolean cached, List<? extends Column<E, ?>> columns) {
+        this.list = list;
+        this.columns = new ArrayList<>(columns);
+        this.cache = cached ? new ArrayList<>() : null;
+        reset();
+      }
+
+      private void reset() {
+        if (cache != null) {
+          cache.clear();
+          cache.addAll(Collections.nCopies(list.size(), null));
+        }
+      }
+
+      @Override
+      public int getRowCount() {
+        return list.size();
+      }
+
+      @Override
+      public int getColumnCount() {
+        return columns.size();
+      }
+
+      @Override
+      public String getColumnName(int column) {
+        return columns.get(column).name;
+      }
+
+      @Override
+      public Class<?> getColumnClass(int column) {
+        return columns.get(column).type;
+      }
+
+      @Override
+      public Object getValueAt(int row, int column) {
+        if (cache == null) {
+          return columns.get(column).getter.apply(list.get(row));
+        }
+        Object[] values = cache.get(row);
+        if (values == null) {
+          cache.set(row, values = new Object[columns.size()]);
+          Arrays.fill(values, UNREAD);
+        }
+        Object value = values[column];
+        return value == UNREAD ? values[column] = columns.get(column).getter.apply(list.get(row)) : value;
+      }
+
+      @Override
+      public boolean isCellEditable(int row, int column) {
+        return columns.get(column).setter != null;
+      }
+
+      @Override
+      public void setValueAt(Object value, int row, int column) {
+        columns.get(column).set(list.get(row), value);
+        changed(row);
+      }
+
+      private void changed(int row) {
+        if (row >= 0 && row < list.size()) {
+          if (cache != null) {
+            cache.set(row, null);
+          }
+          fireTableRowsUpdated(row, row);
+        }
+      }
+
+      @Override
+      public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, int length) {
+        if (cache != null) {
+          cache.addAll(index, Collections.nCopies(length, null));
+        }
+        fireTableRowsInserted(index, index + length - 1);
+      }
+
+      @Override
+      public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, @SuppressWarnings("rawtypes") List oldElements) {
+        if (cache != null) {
+          cache.subList(index, index + oldElements.size()).clear();
+        }
+        fireTableRowsDeleted(index, index + oldElements.size() - 1);
+      }
+
+      @Override
+      public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, Object oldElement) {
+        changed(index);
+      }
+
+      @Override
+      public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index) {
+        changed(index);
+      }
+
+    }
+
+    /**
+     * A table column - its name, type and the accessors that read (and optionally write) the value
+     * of an element. The accessors are resolved when the column is created, not for every cell.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <E> the element (row) type
+     * @param <V> the value type
+     */
+    public static final class Column<E, V> {
+      private final String name;
+      private final Class<?> type;
+      private final Function<? super E, ? extends V> getter;
+      private final BiConsumer<? super E, ? super V> setter;
+
+      private Column(String name, Class<?> type, Function<? super E, ? extends V> getter, BiConsumer<? super E, ? super V> setter) {
+        this.name = name;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+      }
+
+      /**
+       * A read only column.
+       * 
+       * @param name the column header
+       * @param type the value type (used for rendering and sorting)
+       * @param getter
+       * @return the column
+       */
+      public static <E, V> Column<E, V> of(String name, Class<V> type, Function<? super E, ? extends V> getter) {
+        return new Column<>(name, type, getter, null);
+      }
+
+      /**
+       * An editable column.
+       * 
+       * @param name the column header
+       * @param type the value type (used for rendering, sorting and editing)
+       * @param getter
+       * @param setter
+       * @return the column
+       */
+      public static <E, V> Column<E, V> of(String name, Class<V> type, Function<? super E, ? extends V> getter, BiConsumer<? super E, ? super V> setter) {
+        return new Column<>(name, type, getter, setter);
+      }
+
+      /**
+       * A column for a bean property of the element type - the getter (and the setter if there is
+       * one) are looked up once and compiled into accessors.
+       * 
+       * @param name the column header
+       * @param elementType
+       * @param property eg: "name"
+       * @return the column
+       */
+      @SuppressWarnings("unchecked")
+      public static <E> Column<E, Object> property(String name, Class<E> elementType, String property) {
+        try {
+          for (PropertyDescriptor descriptor : Introspector.getBeanInfo(elementType).getPropertyDescriptors()) {
+            if (descriptor.getName().equals(property) && descriptor.getReadMethod() != null) {
+              MethodHandles.Lookup lookup = MethodHandles.lookup();
+              MethodHandle read = lookup.unreflect(descriptor.getReadMethod());
+              Function<E, Object> getter = (Function<E, Object>) LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class), read, read.type().wrap()).getTarget().invokeExact();
+              BiConsumer<E, Object> setter = null;
+              if (descriptor.getWriteMethod() != null) {
+                MethodHandle write = lookup.unreflect(descriptor.getWriteMethod());
+                setter = (BiConsumer<E, Object>) LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class), write, write.type().wrap().changeReturnType(void.class)).getTarget().invokeExact();
+              }
+              Class<?> type = read.type().returnType();
+              return new Column<>(name, type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type, getter, setter);
+            }
+          }
+        } catch (Throwable e) {
+          throw new IllegalArgumentException("Could not compile accessors for [" + elementType.getName() + "." + property + "]", e);
+        }
+        throw new IllegalArgumentException("No readable property [" + property + "] in " + elementType.getName());
+      }
+
+      @SuppressWarnings("unchecked")
+      private void set(E element, Object value) {
+        ((BiConsumer<? super E, Object>) setter).accept(element, value);
+      }
+
+    }
+
+    /**
+     * Validates a value (or the values of a cross field rule) off the EDT.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <V>
+     */
+    @FunctionalInterface
+    public interface Validator<V> {
+      Validation validate(V value) throws Exception;
+    }
+
+    /**
+     * The result of a validation - bindable by the view eg: "${valid}" or "${message}".
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static final class Validation {
+      public static final Validation VALID = new Validation(true, null);
+      private final boolean valid;
+      private final String message;
+
+      private Validation(boolean valid, String message) {
+        this.valid = valid;
+        this.message = message;
+      }
+
+      public static Validation valid() {
+        return VALID;
+      }
+
+      public static Validation invalid(String message) {
+        return new Validation(false, message);
+      }
+
+      public boolean isValid() {
+        return valid;
+      }
+
+      public String getMessage() {
+        return message;
+      }
+
+      @Override
+      public String toString() {
+        return valid ? "valid" : "invalid: " + message;
+      }
+
+    }
+
+    public Binder binder() {
+      return binder("main");
+    }
+
+    /**
+     * Provides a Binder object for binding UI components to the model properties fro
+     * 
+     * @param name
+     * @return
+     */
+    public Binder binder(String name) {
+      return binders.stream().filter(b -> b.name.equals(name)).findFirst().orElseGet(() -> {
+        Binder b = new Binder(name);
+        binders.add(b);
+        return b;
+      });
+    }
+
+    protected static <S, V> Property<S, V> createProperty(String property) {
+      return property.contains("${") ? ELProperty.create(property) : BeanProperty.create(property);
+    }
+
+    /**
+     * Binds each of the binders - typically called from the start method. Bindings that are already
+     * bound are left as they are (only new bindings are bound and synced).
+     * 
+     */
+    public void update() {
+      this.binders.forEach((b) -> {
+        b.bind();
+      });
+    }
+
+    /**
+     * Start this controller (ie: have it call it's own abstract on start method) while optionally
+     * performing the binding on all of the configured bindings.
+     * 
+     * @param bind
+     */
+    public void start(boolean bind) {
+      if (disposed) {
+        throw new IllegalStateException("Controller has been disposed");
+      }
+      if (Trace.recorder != null) {
+        Trace.recorder.controller(this);
+      }
+      for (Method method : this.getClass().getDeclaredMethods()) {
+
+        WatchListener listener = method.getAnnotation(WatchListener.class);
+        if (listener != null) {
+          for (String property : listener.properties()) {
+            watchModelProperty(property, method);
+          }
+        }
+      }
+      stopped = false;
+      getDispatcher().dispatch(() -> {
+        if (disposed || stopped) {
+          return;
+        }
+        if (bind) {
+          update();
+        }
+        onStart();
+      });
+    }
+
+    public void onStart() {};
+
+    /*
+     * LIFECYCLE
+     */
+
+    private transient final List<Runnable> registrations = new CopyOnWriteArrayList<>(), disposers = new CopyOnWriteArrayList<>();
+    private transient final List<Controller<?>> children = new CopyOnWriteArrayList<>();
+    private transient Controller<?> parent;
+    private transient volatile boolean disposed, stopped;
+
+    /**
+     * Stops this controller - removes the watch listeners added by start and unbinds the binders
+     * (if start hasn't run its binding and onStart on the dispatcher yet, they aren't run). It can
+     * be started again.
+     */
+    public void stop() {
+      stopped = true;
+      registrations.forEach(Runnable::run);
+      registrations.clear();
+      new ArrayList<>(binders).forEach(Binder::unbind);
+      onStop();
+    }
+
+    public void onStop() {};
+
+    /**
+     * Disposes this controller and its children - it is stopped, the binders are disposed and it is
+     * removed from its parent. Nothing it registered is left attached to the model.
+     */
+    public void dispose() {
+      if (disposed) {
+        return;
+      }
+      disposed = true;
+      children.forEach(Controller::dispose);
+      children.clear();
+      stop();
+      new ArrayList<>(binders).forEach(Binder::dispose);
+      disposers.forEach(Runnable::run);
+      disposers.clear();
+      if (parent != null) {
+        parent.children.remove(this);
+        parent = null;
+      }
+      onDispose();
+    }
+
+    public void onDispose() {};
+
+    public boolean isDisposed() {
+      return disposed;
+    }
+
+    /**
+     * Adds a child controller - it is disposed with this controller (eg: the controllers of the
+     * panels in a window).
+     * 
+     * @param child
+     * @return the child (allows for chaining)
+     */
+    public <C extends Controller<?>> C addChild(C child) {
+      Controller<?> controller = child;
+      if (controller.parent != null) {
+        controller.parent.children.remove(controller);
+      }
+      controller.parent = this;
+      children.add(controller);
+      return child;
+    }
+
+    public Controller<?> getParent() {
+      return parent;
+    }
+
+    /**
+     * Disposes this controller (and its children) when the window is closed.
+     * 
+     * @param window
+     * @return the window (allows for chaining)
+     */
+    public <W extends Window> W disposeOnClose(W window) {
+      WindowAdapter listener = new WindowAdapter() {
+
+        @Override
+        public void windowClosed(WindowEvent e) {
+          dispose();
+        }
+      };
+      window.addWindowListener(listener);
+      disposers.add(() -> window.removeWindowListener(listener));
+      return window;
+    }
+
+    /*
+     * DISPATCHER
+     */
+
+    private transient Dispatcher dispatcher;
+
+    /**
+     * The dispatcher this controller runs its UI work on - the default dispatcher (normally the EDT)
+     * unless one has been set.
+     * 
+     * @return the dispatcher
+     */
+    public Dispatcher getDispatcher() {
+      return dispatcher == null ? Dispatcher.get() : dispatcher;
+    }
+
+    /**
+     * Sets the dispatcher for this controller, should be called before it is started.
+     * 
+     * @param dispatcher
+     */
+    public void setDispatcher(Dispatcher dispatcher) {
+      this.dispatcher = dispatcher;
+    }
+
+    /*
+     * BATCH UPDATES
+     */
+
+    /**
+     * Runs the updates (typically bulk model changes) with the layout and repainting of the bound
+     * components held back - each revalidate and repaint is collected and once the updates are done
+     * each affected container is validated once and the collected regions repainted. Calls can be
+     * nested, the outermost call does the validate. Runs on the dispatcher (now if this is the
+     * dispatch thread).
+     * 
+     * @param updates
+     */
+    public void batchUpdate(Runnable updates) {
+      getDispatcher().run(() -> BatchRepaintManager.batch(updates));
+    }
+
+    /**
+     * A repaint manager that is installed for the duration of a batch update and collects the
+     * invalid components and dirty regions instead of scheduling them.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    private static final class BatchRepaintManager extends RepaintManager {
+      private final RepaintManager delegate;
+      private final Set<Component> invalid = new LinkedHashSet<>();
+      private final Map<JComponent, Rectangle> dirty = new LinkedHashMap<>();
+      private int depth;
+
+      private BatchRepaintManager(RepaintManager delegate) {
+        this.delegate = delegate;
+      }
+
+      private static void batch(Runnable updates) {
+        RepaintManager current = RepaintManager.currentManager((Component) null);
+        BatchRepaintManager batch = current instanceof BatchRepaintManager ? (BatchRepaintManager) current : new BatchRepaintManager(current);
+        if (batch.depth++ == 0) {
+          RepaintManager.setCurrentManager(batch);
+        }
+        try {
+          updates.run();
+        } finally {
+          if (--batch.depth == 0) {
+            RepaintManager.setCurrentManager(batch.delegate);
+            batch.flush();
+          }
+        }
+      }
+
+      private void flush() {
+        for (Component root : invalid) {
+          root.validate();
+        }
+        invalid.clear();
+        for (Map.Entry<JComponent, Rectangle> e : dirty.entrySet()) {
+          Rectangle r = e.getValue();
+          delegate.addDirtyRegion(e.getKey(), r.x, r.y, r.width, r.height);
+        }
+        dirty.clear();
+      }
+
+      @Override
+      public void addInvalidComponent(JComponent component) {
+        Component root = component;
+        while (root.getParent() != null && !(root instanceof Window) && !(root instanceof JComponent && ((JComponent) root).isValidateRoot())) {
+          root = root.getParent();
+        }
+        invalid.add(root);
+      }
+
+      @Override
+      public void removeInvalidComponent(JComponent component) {
+        invalid.remove(component);
+        delegate.removeInvalidComponent(component);
+      }
+
+      @Override
+      public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+        if (w > 0 && h > 0) {
+          Rectangle r = dirty.get(c);
+          if (r == null) {
+            dirty.put(c, new Rectangle(x, y, w, h));
+          } else {
+            r.add(new Rectangle(x, y, w, h));
+          }
+        }
+      }
+
+      @Override
+      public void addDirtyRegion(Window window, int x, int y, int w, int h) {
+        delegate.addDirtyRegion(window, x, y, w, h);
+      }
+
+      @Override
+      public Rectangle getDirtyRegion(JComponent c) {
+        Rectangle r = dirty.get(c), d = delegate.getDirtyRegion(c);
+        return r == null ? d : d.isEmpty() ? new Rectangle(r) : r.union(d);
+      }
+
+      @Override
+      public void markCompletelyClean(JComponent c) {
+        dirty.remove(c);
+        delegate.markCompletelyClean(c);
+      }
+
+      @Override
+      public boolean isDoubleBufferingEnabled() {
+        return delegate.isDoubleBufferingEnabled();
+      }
+
+      @Override
+      public Image getOffscreenBuffer(Component c, int proposedWidth, int proposedHeight) {
+        return delegate.getOffscreenBuffer(c, proposedWidth, proposedHeight);
+      }
+
+      @Override
+      public Image getVolatileOffscreenBuffer(Component c, int proposedWidth, int proposedHeight) {
+        return delegate.getVolatileOffscreenBuffer(c, proposedWidth, proposedHeight);
+      }
+
+      @Override
+      public Dimension getDoubleBufferMaximumSize() {
+        return delegate.getDoubleBufferMaximumSize();
+      }
+
+    }
+
+    /*
+     * SNAPSHOTS
+     */
+
+    /**
+     * Takes a snapshot of the model on the dispatcher and hands it to the reader on a worker thread
+     * - for exports, reports and searches that shouldn't hold up (or be upset by) changes to the
+     * model.
+     * 
+     * @param reader
+     * @return the future of the reader
+     */
+    public CompletableFuture<Void> readSnapshot(Consumer<Model.Snapshot> reader) {
+      if (!(m instanceof Model)) {
+        throw new IllegalStateException("Model is not an MVC.Model");
+      }
+      CompletableFuture<Model.Snapshot> snapshot = new CompletableFuture<>();
+      getDispatcher().run(() -> snapshot.complete(((Model) m).snapshot()));
+      return snapshot.thenAcceptAsync(reader, Workers.pool()).whenComplete((v, e) -> {
+        if (e != null) {
+          log(Level.WARNING, e, () -> "Error reading snapshot");
+        }
+      });
+    }
+
+    /*
+     * LOGGER
+     */
+
+    private static final AtomicLong instances = new AtomicLong();
+    private transient final long instance = instances.incrementAndGet();
+    private transient Logger logger;
+
+    /**
+     * The logger for this controller's class (shared by all instances) - the records logged through
+     * {@link #log(Level, Supplier)} carry the instance as their context.
+     * 
+     * @return
+     */
+    public Logger getLogger() {
+      return logger == null ? logger = Logging.logger(this.getClass()) : logger;
+    }
+
+    /**
+     * Logs the message (only built if the level is loggable) with this controller instance as the
+     * record context.
+     * 
+     * @param level
+     * @param message
+     */
+    public void log(Level level, Supplier<String> message) {
+      log(level, null, message);
+    }
+
+    /**
+     * Logs the message (only built if the level is loggable) and the thrown exception with this
+     * controller instance as the record context.
+     * 
+     * @param level
+     * @param thrown
+     * @param message
+     */
+    public void log(Level level, Throwable thrown, Supplier<String> message) {
+      Logger logger = getLogger();
+      if (logger.isLoggable(level)) {
+        Logging.Record record = new Logging.Record(level, message == null ? null : message.get(), this.getClass().getSimpleName() + "#" + instance);
+        record.setLoggerName(logger.getName());
+        record.setSourceClassName(this.getClass().getName());
+        record.setSourceMethodName(null);
+        record.setThrown(thrown);
+        logger.log(record);
+      }
+    }
+
+    /*
+     * GSON TOOLS
+     */
+
+    /**
+     * A basic pretty serializer for Json Objects - shared by all controllers.
+     * 
+     * @return
+     */
+    public Gson getGson() {
+      return Json.pretty();
+    }
+
+    /**
+     * Dump and object as Json to the logger - handy for debugging.
+     * 
+     * @param o
+     */
+    public void logObject(Object o) {
+      logObject(Level.INFO, o);
+    }
+
+    /**
+     * Dump and object as Json to the logger at the given level. Nothing is serialized unless the
+     * logger will log the level.
+     * 
+     * @param level
+     * @param o
+     */
+    public void logObject(Level level, Object o) {
+      log(level, () -> Json.toPrettyJson(o));
+    }
+
+    /*
+     * WATCH LISTENERS
+     */
+    /**
+     * Defines a method as watching for changes of the specified properties. The method is called
+     * with a single PropertyWatchEvent<T> with the expected property type.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface WatchListener {
+      String[] properties();
+    }
+
+    /**
+     * Internal method that processes the property watch annotations.
+     * 
+     * @param srcProperty
+     * @param method
+     */
+    protected void watchModelProperty(String srcProperty, Method method) {
+      Property<Object, Object> property = createProperty(srcProperty);
+      if (property.getValue(m) instanceof Model.ObservableMap<?, ?>) {
+        Model.ObservableMap<?, ?> map = (Model.ObservableMap<?, ?>) property.getValue(m);
+        MapWatcher watcher = new MapWatcher(method);
+        map.addObservableMapListener(watcher);
+        registrations.add(() -> map.removeObservableMapListener(watcher));
+      } else {
+        PropertyWatcher watcher = new PropertyWatcher(method, property);
+        property.addPropertyStateListener(m, watcher);
+        watcher.watch();
+        registrations.add(() -> {
+          property.removePropertyStateListener(m, watcher);
+          watcher.unwatch();
+        });
+      }
+    }
+
+    /**
+     * Calls the watch method when the property changes - and when the contents of the
+     * ObservableList it holds change (following the property to a new list when it is set).
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    private final class PropertyWatcher implements PropertyStateListener {
+      private final Method method;
+      private final Property<Object, Object> property;
+      private org.jdesktop.observablecollections.ObservableList<?> list;
+      private ListWatcher contents;
+
+      private PropertyWatcher(Method method, Property<Object, Object> property) {
+        this.method = method;
+        this.property = property;
+      }
+
+      @Override
+      public void propertyStateChanged(PropertyStateEvent pse) {
+        watch();
+        invokeWatcher(method, new PropertyWatchEvent<>(pse.getOldValue(), pse.getNewValue(), pse));
+      }
+
+      private void watch() {
+        Object value = property.isReadable(m) ? property.getValue(m) : null;
+        if (value != list) {
+          unwatch();
+          if (value instanceof org.jdesktop.observablecollections.ObservableList<?>) {
+            list = (org.jdesktop.observablecollections.ObservableList<?>) value;
+            contents = new ListWatcher(method, list);
+            list.addObservableListListener(contents);
+          }
+        }
+      }
+
+      private void unwatch() {
+        if (list != null) {
+          list.removeObservableListListener(contents);
+          list = null;
+          contents = null;
+        }
+      }
+
+    }
+
+    private void invokeWatcher(Method method, PropertyWatchEvent<?> event) {
+      try {
+        invokeHandler(method, event);
+      } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+        log(Level.SEVERE, e, () -> "Error invoking method");
+      }
+    }
+
+    /**
+     * Calls a handler method with its event - actions, mouse, drop and watch listeners all go
+     * through here so they can be traced.
+     * 
+     * @param method
+     * @param event
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    private void invokeHandler(Method method, Object event) throws IllegalAccessException, InvocationTargetException {
+      if (!Trace.tracing()) {
+        method.invoke(this, event);
+        return;
+      }
+      try {
+        Trace.handle(this, method, event, () -> method.invoke(this, event));
+      } catch (IllegalAccessException | InvocationTargetException | RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new InvocationTargetException(e);
+      }
+    }
+
+    /**
+     * Collects the keys changed in an ObservableMap and calls the watch method once per EDT tick
+     * with all of them - rather than once for every put/remove.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    private final class MapWatcher implements ObservableMapListener {
+      private final Method method;
+      private final Map<Object, MapChange<Object, Object>> pending = new LinkedHashMap<>();
+
+      private MapWatcher(Method method) {
+        this.method = method;
+      }
+
+      private void record(Object map, Object key, boolean hadOld, Object oldValue, boolean hasNew, Object newValue) {
+        boolean schedule;
+        synchronized (pending) {
+          schedule = pending.isEmpty();
+          MapChange<Object, Object> change = pending.get(key);
+          if (change == null) {
+            pending.put(key, new MapChange<>(key, hadOld, oldValue, hasNew, newValue));
+          } else {
+            change.hasNew = hasNew;
+            change.newValue = newValue;
+          }
+        }
+        if (schedule) {
+          getDispatcher().dispatch(() -> flush(map));
+        }
+      }
+
+      private void flush(Object map) {
+        Map<Object, MapChange<Object, Object>> changes = new LinkedHashMap<>();
+        synchronized (pending) {
+          pending.forEach((key, change) -> {
+            if (change.getType() != null) {
+              changes.put(key, change);
+            }
+          });
+          pending.clear();
+        }
+        if (!changes.isEmpty()) {
+          invokeWatcher(method, new PropertyWatchEvent<>(map, map, null, Collections.unmodifiableMap(changes)));
+        }
+      }
+
+      @Override
+      public void mapKeyAdded(@SuppressWarnings("rawtypes") ObservableMap map, Object key) {
+        record(map, key, false, null, true, map.get(key));
+      }
+
+      @Override
+      public void mapKeyRemoved(@SuppressWarnings("rawtypes") ObservableMap map, Object key, Object value) {
+        record(map, key, true, value, false, null);
+      }
+
+      @Override
+      public void mapKeyValueChanged(@SuppressWarnings("rawtypes") ObservableMap map, Object key, Object lastValue) {
+        record(map, key, true, lastValue, true, map.get(key));
+      }
+    }
+
+    /**
+     * Calls the watch method once per EDT tick (with the list as the old and new value) when an
+     * ObservableList changes.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    private final class ListWatcher implements ObservableListListener {
+      private final Method method;
+      private final Object list;
+      private final AtomicBoolean scheduled = new AtomicBoolean();
+
+      private ListWatcher(Method method, Object list) {
+        this.method = method;
+        this.list = list;
+      }
+
+      private void changed() {
+        if (scheduled.compareAndSet(false, true)) {
+          getDispatcher().dispatch(() -> {
+            scheduled.set(false);
+            invokeWatcher(method, new PropertyWatchEvent<>(list, list, null));
+          });
+        }
+      }
+
+      @Override
+      public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, int length) {
+        changed();
+      }
+
+      @Override
+      public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, @SuppressWarnings("rawtypes") List oldElements) {
+        changed();
+      }
+
+      @Override
+      public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index, Object oldElement) {
+        changed();
+      }
+
+      @Override
+      public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList l, int index) {
+        changed();
+      }
+    }
+
+    /**
+     * Event passed from a Property Watch Event containing the old and new values.
+     * 
+     * <p>
+     * When the watched property is an ObservableMap the old and new values are the map itself and
+     * {@link #getMapChanges()} holds the keys that changed since the last event.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <T>
+     */
+    public static final class PropertyWatchEvent<T> {
+      private T oldValue;
+      private T newValue;
+      private PropertyStateEvent event;
+      private Map<?, ? extends MapChange<?, ?>> changes;
+
+      PropertyWatchEvent(T oldValue, T newValue, PropertyStateEvent event) {
+        this(oldValue, newValue, event, Collections.emptyMap());
+      }
+
+      PropertyWatchEvent(T oldValue, T newValue, PropertyStateEvent event, Map<?, ? extends MapChange<?, ?>> changes) {
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.event = event;
+        this.changes = changes;
+      }
+
+      public Optional<T> getOldValue() {
+        return Optional.ofNullable(oldValue);
+      }
+
+      public Optional<T> getNewValue() {
+        return Optional.ofNullable(newValue);
+      }
+
+      public PropertyStateEvent getEvent() {
+        return event;
+      }
+
+      /**
+       * The changed keys of a watched ObservableMap (in the order they were first changed), empty
+       * for any other property.
+       * 
+       * @return key to change
+       */
+      @SuppressWarnings("unchecked")
+      public <K, V> Map<K, MapChange<K, V>> getMapChanges() {
+        return (Map<K, MapChange<K, V>>) changes;
+      }
+
+    }
+
+    /**
+     * A single key change in a watched ObservableMap. Several changes to the same key within one
+     * event are collapsed into one - keeping the first old value and the last new value.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     * @param <K>
+     * @param <V>
+     */
+    public static final class MapChange<K, V> {
+      private K key;
+      private boolean hadOld, hasNew;
+      private V oldValue, newValue;
+
+      MapChange(K key, boolean hadOld, V oldValue, boolean hasNew, V newValue) {
+        this.key = key;
+        this.hadOld = hadOld;
+        this.oldValue = oldValue;
+        this.hasNew = hasNew;
+        this.newValue = newValue;
+      }
+
+      public K getKey() {
+        return key;
+      }
+
+      public Optional<V> getOldValue() {
+        return Optional.ofNullable(oldValue);
+      }
+
+      public Optional<V> getNewValue() {
+        return Optional.ofNullable(newValue);
+      }
+
+      /**
+       * @return the type of change or null if the key ended up where it started
+       */
+      public Type getType() {
+        if (hadOld && hasNew) {
+          return Objects.equals(oldValue, newValue) ? null : Type.CHANGED;
+        }
+        return hadOld ? Type.REMOVED : (hasNew ? Type.ADDED : null);
+      }
+
+      public enum Type {
+        ADDED, REMOVED, CHANGED;
+      }
+
+    }
+
+    /*
+     * ACTIONS
+     */
+    /**
+     * Returns an action (named <b>name</b>) that will call the controller method <b>methodname</b>
+     * with an ActionEvent.
+     * 
+     * @param name of the action
+     * @param methodname to call on invoke
+     * @return
+     */
+    public Action addAction(String name, String methodname) {
+      return addAction(name, null, methodname);
+    }
+
+    /**
+     * Returns an action (named <b>name</b>, with icon <b>icon</b>) that will call the controller
+     * method <b>methodname</b> with an ActionEvent.
+     * 
+     * @param name of the action
+     * @param icon of the action
+     * @param methodname to call on invoke
+     * @return
+     */
+    public Action addAction(String name, Icon icon, String methodname) {
+      try {
+        return new AbstractAction(name, icon) {
+
+          @Override
+          public void actionPerformed(ActionEvent ae) {
+            try {
+              Method method = Controller.this.getClass().getDeclaredMethod(methodname, new Class[] {ActionEvent.class});
+              invokeHandler(method, ae);
+            } catch (NoSuchMethodException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+              log(Level.SEVERE, e, () -> "Error getting method [" + methodname + "]");
+            }
+          }
+        };
+      } catch (SecurityException e) {
+        log(Level.SEVERE, e, () -> "Error getting method");
+      }
+      return null;
+    }
+
+    /**
+     * Returns an action (named <b>name</b>) that will call the controller method <b>methodname</b>
+     * with an ActionEvent - the icon is loaded from the resource <b>iconResource</b> (relative to the
+     * controller class) in the background, the action has a blank icon until it is loaded. Icons are
+     * cached (see {@link Icons}).
+     * 
+     * @param name of the action
+     * @param iconResource of the icon (eg: "icons/save.png" - an "icons/save@2x.png" is used on HiDPI
+     *        screens)
+     * @param iconSize width and height of the icon
+     * @param methodname to call on invoke
+     * @return
+     */
+    public Action addAction(String name, String iconResource, int iconSize, String methodname) {
+      CompletableFuture<Icon> icon = Icons.load(getClass(), iconResource, iconSize);
+      boolean loaded = icon.isDone() && !icon.isCompletedExceptionally();
+      Action action = addAction(name, loaded ? icon.join() : Icons.placeholder(iconSize), methodname);
+      if (action != null && !loaded) {
+        icon.whenComplete((result, e) -> {
+          if (e != null) {
+            log(Level.WARNING, e.getCause() == null ? e : e.getCause(), () -> "Error loading icon [" + iconResource + "]");
+          } else {
+            getDispatcher().dispatch(() -> action.putValue(Action.SMALL_ICON, result));
+          }
+        });
+      }
+      return action;
+    }
+
+    /*
+     * MOUSE EVENTS
+     */
+    /*
+     * MOUSE EVENTS
+     */
+
+    public <T extends JComponent> T addMouseListener(T comp, String methodname) {
+      comp.addMouseListener(addMouseListener(methodname));
+      return comp;
+    }
+
+    public MouseListener addMouseListener(String methodname) {
+      return new MouseAdapter() {
+        private Method method;
+
+        private void callMethod(java.awt.event.MouseEvent event, MouseEvent.Type type) {
+          try {
+            method = method == null ? method = Controller.this.getClass().getDeclaredMethod(methodname, new Class[] {MouseEvent.class}) : method;
+            invokeHandler(method, new MouseEvent<Object>(event.getSource(), event, type));
+          } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            log(Level.SEVERE, e, () -> "Error getting mouse listener method [" + methodname + "]");
+          }
+        }
+
+        @Override
+        public void mouseClicked(java.awt.event.MouseEvent event) {
+          callMethod(event, MouseEvent.Type.CLICKED);
+        }
+
+        @Override
+        public void mouseDragged(java.awt.event.MouseEvent event) {
+          callMethod(event, MouseEvent.Type.DRAGGED);
+        }
+
+        @Override
+        public void mouseEntered(java.awt.event.MouseEvent event) {
+          callMethod(event, MouseEvent.Type.ENTERED);
+        }
+
+        @Override
+        public void mouseExited(java.awt.event.MouseEvent event) {
+          callMethod(event, MouseEvent.Type.EXITED);
+        }
+
+        @Override
+        public void mouseMoved(java.awt.event.MouseEvent event) {
+          callMethod(event, MouseEvent.Type.MOVED);
+        }
+
+        @Override
+        public void mousePressed(java.awt.event.MouseEvent event) {
+          callMethod(event, MouseEvent.Type.PRESSED);
+        }
+
+        @Override
+        public void mouseReleased(java.awt.event.MouseEvent event) {
+          callMethod(event, MouseEvent.Type.RELEASED);
+        }
+
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent event) {
+          callMethod(event, MouseEvent.Type.WHEELMOVED);
+        }
+
+      };
+    }
+
+    public static final class MouseEvent<T> {
+      private java.awt.event.MouseEvent nativeEvent;
+      private Type type;
+      private T source;
+
+      protected MouseEvent(T src, java.awt.event.MouseEvent mouseEvent, Type type) {
+        this.source = src;
+        this.nativeEvent = mouseEvent;
+        this.type = type;
+      }
+
+      public enum Type {
+        CLICKED, DRAGGED, ENTERED, EXITED, MOVED, PRESSED, RELEASED, WHEELMOVED;
+      }
+
+      public java.awt.event.MouseEvent getNativeEvent() {
+        return nativeEvent;
+      }
+
+      public Point getLocationOnScreen() {
+        return nativeEvent.getLocationOnScreen();
+      }
+
+      public Point getPoint() {
+        return nativeEvent.getPoint();
+      }
+
+      public Type getType() {
+        return type;
+      }
+
+      public T getSource() {
+        return source;
+      }
+
+    }
+
+    public <T extends JComponent> T addDroptargetListener(T comp, String methodname) {
+      comp.setDropTarget(new DropTarget(comp, DnDConstants.ACTION_COPY, addDroptargetListener(methodname)));
+      return comp;
+    }
+
+    public DropTargetListener addDroptargetListener(String methodname) {
+      return new DropTargetListener() {
+        private Method method;
+
+        private void callMethod(Object src, DropEvent.Type type, Transferable t) {
+          try {
+            method = method == null ? method = Controller.this.getClass().getDeclaredMethod(methodname, new Class[] {DropEvent.class}) : method;
+            invokeHandler(method, new DropEvent<Object>(src, type, t));
+          } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            log(Level.SEVERE, e, () -> "Error getting drop listener method [" + methodname + "]");
+          }
+        }
+
+        @Override
+        public void dragEnter(DropTargetDragEvent dtde) {
+          dtde.acceptDrag(dtde.getDropAction());
+          callMethod(dtde.getSource(), DropEvent.Type.DRAGENTER, null);
+        }
+
+        @Override
+        public void dragOver(DropTargetDragEvent dtde) {
+          dtde.acceptDrag(dtde.getDropAction());
+          callMethod(dtde.getSource(), DropEvent.Type.DRAGOVER, dtde.getTransferable());
+
+        }
+
+        @Override
+        public void dropActionChanged(DropTargetDragEvent dtde) {
+          dtde.acceptDrag(dtde.getDropAction());
+          callMethod(dtde.getSource(), DropEvent.Type.DROPCHANGED, dtde.getTransferable());
+        }
+
+        @Override
+        public void dragExit(DropTargetEvent dte) {
+          callMethod(dte.getSource(), DropEvent.Type.DRAGEXIT, null);
+        }
+
+        @Override
+        public void drop(DropTargetDropEvent dtde) {
+          dtde.acceptDrop(dtde.getDropAction());
+          callMethod(dtde.getSource(), DropEvent.Type.DROP, dtde.getTransferable());
+        }
+      };
+    }
+
+    /**
+     * Adds a streaming drop listener (see {@link #addStreamingDroptargetListener(String)}) to the
+     * component.
+     * 
+     * @param comp
+     * @param methodname
+     * @return the component
+     */
+    public <T extends JComponent> T addStreamingDroptargetListener(T comp, String methodname) {
+      comp.setDropTarget(new DropTarget(comp, DnDConstants.ACTION_COPY, addStreamingDroptargetListener(methodname)));
+      return comp;
+    }
+
+    /**
+     * A drop listener for large drops. The drag events only carry the data flavors (the data isn't
+     * read), on drop a file list (walking any folders) or stream is read on a worker and passed to
+     * the method in CHUNK events followed by a COMPLETE event. The progress (and cancellation) of
+     * the drop is available through the {@link DropTask} model of the events.
+     * 
+     * <p>
+     * Drops that aren't a file list or stream are passed to the method as a normal DROP event.
+     * 
+     * @param methodname to call with a DropEvent
+     * @return the listener
+     */
+    public DropTargetListener addStreamingDroptargetListener(String methodname) {
+      return new DropTargetListener() {
+        private Method method;
+
+        private void callMethod(DropEvent<Object> event) {
+          try {
+            method = method == null ? Controller.this.getClass().getDeclaredMethod(methodname, DropEvent.class) : method;
+            invokeHandler(method, event);
+          } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            log(Level.SEVERE, e, () -> "Error getting drop listener method [" + methodname + "]");
+          }
+        }
+
+        private void drag(DropTargetDragEvent dtde, DropEvent.Type type) {
+          dtde.acceptDrag(dtde.getDropAction());
+          callMethod(DropEvent.dragged(dtde.getSource(), type, dtde.getCurrentDataFlavors()));
+        }
+
+        @Override
+        public void dragEnter(DropTargetDragEvent dtde) {
+          drag(dtde, DropEvent.Type.DRAGENTER);
+        }
+
+        @Override
+        public void dragOver(DropTargetDragEvent dtde) {
+          drag(dtde, DropEvent.Type.DRAGOVER);
+        }
+
+        @Override
+        public void dropActionChanged(DropTargetDragEvent dtde) {
+          drag(dtde, DropEvent.Type.DROPCHANGED);
+        }
+
+        @Override
+        public void dragExit(DropTargetEvent dte) {
+          callMethod(new DropEvent<Object>(dte.getSource(), DropEvent.Type.DRAGEXIT, null));
+        }
+
+        @Override
+        public void drop(DropTargetDropEvent dtde) {
+          dtde.acceptDrop(dtde.getDropAction());
+          Object src = dtde.getSource();
+          Transferable t = dtde.getTransferable();
+          DataFlavor[] flavors = dtde.getCurrentDataFlavors();
+          DropTask task = new DropTask();
+          try {
+            if (dtde.isDataFlavorSupported(DataFlavor.javaFileListFlavor)) {
+              @SuppressWarnings("unchecked")
+              List<File> files = (List<File>) t.getTransferData(DataFlavor.javaFileListFlavor);
+              dtde.dropComplete(true);
+              callMethod(DropEvent.streaming(src, flavors, task));
+              Workers.pool().submit(() -> streamFiles(src, files, task, this::callMethod));
+              return;
+            }
+            for (DataFlavor flavor : flavors) {
+              if (flavor.isRepresentationClassInputStream()) {
+                InputStream in = (InputStream) t.getTransferData(flavor);
+                callMethod(DropEvent.streaming(src, flavors, task));
+                Workers.pool().submit(() -> {
+                  streamBytes(src, in, task, this::callMethod);
+                  getDispatcher().dispatch(() -> dtde.dropComplete(!task.isCancelled() && task.getError() == null));
+                });
+                return;
+              }
+            }
+          } catch (UnsupportedFlavorException | IOException e) {
+            log(Level.WARNING, e, () -> "Error reading drop");
+          }
+          callMethod(DropEvent.dropped(src, t, flavors));
+          dtde.dropComplete(true);
+        }
+      };
+    }
+
+    private static final int DROP_CHUNK_FILES = 256, DROP_CHUNK_BYTES = 65536, DROP_CHUNKS_QUEUED = 4;
+
+    /**
+     * Walks the dropped files (and folders) on a worker passing them to the method in chunks. Links
+     * to folders aren't followed (so a link back up the tree can't loop the walk), files that can't
+     * be read are passed on as they are.
+     */
+    private void streamFiles(Object src, List<File> roots, DropTask task, Consumer<DropEvent<Object>> method) {
+      Semaphore queued = new Semaphore(DROP_CHUNKS_QUEUED);
+      class Walk extends SimpleFileVisitor<Path> {
+        private List<File> chunk = new ArrayList<>(DROP_CHUNK_FILES);
+        private long count;
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          return task.isCancelled() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isSymbolicLink() && Files.isDirectory(file)) {
+            return FileVisitResult.CONTINUE;
+          }
+          return add(file);
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+          return add(file);
+        }
+
+        private FileVisitResult add(Path file) {
+          if (task.isCancelled()) {
+            return FileVisitResult.TERMINATE;
+          }
+          chunk.add(file.toFile());
+          return chunk.size() == DROP_CHUNK_FILES ? send() : FileVisitResult.CONTINUE;
+        }
+
+        private FileVisitResult send() {
+          try {
+            sendChunk(src, task, DropEvent.files(src, task, chunk), count += chunk.size(), queued, method);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.fail(e);
+            return FileVisitResult.TERMINATE;
+          }
+          chunk = new ArrayList<>(DROP_CHUNK_FILES);
+          return FileVisitResult.CONTINUE;
+        }
+      }
+      Walk walk = new Walk();
+      try {
+        for (File root : roots) {
+          if (task.isCancelled() || task.getError() != null) {
+            break;
+          }
+          Files.walkFileTree(root.toPath(), walk);
+        }
+        if (!walk.chunk.isEmpty() && !task.isCancelled() && task.getError() == null) {
+          walk.send();
+        }
+      } catch (IOException | RuntimeException e) {
+        task.fail(e);
+      }
+      complete(src, task, method);
+    }
+
+    /**
+     * Reads the dropped stream on a worker passing it to the method in chunks.
+     */
+    private void streamBytes(Object src, InputStream in, DropTask task, Consumer<DropEvent<Object>> method) {
+      Semaphore queued = new Semaphore(DROP_CHUNKS_QUEUED);
+      long count = 0;
+      try (InputStream stream = in) {
+        byte[] buffer = new byte[DROP_CHUNK_BYTES];
+        for (int read = stream.read(buffer); read >= 0 && !task.isCancelled(); read = stream.read(buffer)) {
+          if (read > 0) {
+            sendChunk(src, task, DropEvent.bytes(src, task, Arrays.copyOf(buffer, read)), count += read, queued, method);
+          }
+        }
+      } catch (IOException | InterruptedException | RuntimeException e) {
+        task.fail(e);
+      }
+      complete(src, task, method);
+    }
+
+    /**
+     * Only a few chunks are queued on the dispatcher at a time so a slow handler holds back the
+     * worker (rather than filling the queue).
+     */
+    private void sendChunk(Object src, DropTask task, DropEvent<Object> event, long count, Semaphore queued, Consumer<DropEvent<Object>> method) throws InterruptedException {
+      queued.acquire();
+      getDispatcher().dispatch(() -> {
+        try {
+          task.setCount(count);
+          method.accept(event);
+        } finally {
+          queued.release();
+        }
+      });
+    }
+
+    private void complete(Object src, DropTask task, Consumer<DropEvent<Object>> method) {
+      getDispatcher().dispatch(() -> {
+        task.setDone(true);
+        method.accept(DropEvent.complete(src, task));
+      });
+    }
+
+    /**
+     * The progress of a streaming drop - the count is the number of files or bytes passed to the
+     * handler so far. Properties change on the dispatch thread so they can be bound to the view.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static final class DropTask extends Model {
+      private long count;
+      private boolean done;
+      private volatile boolean cancelled;
+      private volatile Exception error;
+
+      public long getCount() {
+        return count;
+      }
+
+      private void setCount(long count) {
+        propertyChanged("count", this.count, this.count = count);
+      }
+
+      public boolean isDone() {
+        return done;
+      }
+
+      private void setDone(boolean done) {
+        propertyChanged("done", this.done, this.done = done);
+      }
+
+      public boolean isCancelled() {
+        return cancelled;
+      }
+
+      /**
+       * Stops the drop - no more chunks are read (the COMPLETE event is still sent).
+       */
+      public void cancel() {
+        propertyChanged("cancelled", this.cancelled, this.cancelled = true);
+      }
+
+      public Exception getError() {
+        return error;
+      }
+
+      private void fail(Exception error) {
+        this.error = error;
+      }
+
+    }
+
+    public static final class DropEvent<T> {
+      private T src;
+      private Type type;
+      private Transferable transferable;
+      private DataFlavor[] flavors;
+      private List<File> files;
+      private byte[] bytes;
+      private DropTask task;
+
+      public DropEvent(T src, Type type, Transferable transferable) {
+        this.src = src;
+        this.type = type;
+        this.transferable = transferable;
+      }
+
+      /**
+       * A drag event of a streaming drop - only the flavors on offer.
+       */
+      static <T> DropEvent<T> dragged(T src, Type type, DataFlavor[] flavors) {
+        DropEvent<T> event = new DropEvent<>(src, type, null);
+        event.flavors = flavors;
+        return event;
+      }
+
+      /**
+       * A drop that isn't streamed - the transferable is passed as it is.
+       */
+      static <T> DropEvent<T> dropped(T src, Transferable transferable, DataFlavor[] flavors) {
+        DropEvent<T> event = new DropEvent<>(src, Type.DROP, transferable);
+        event.flavors = flavors;
+        return event;
+      }
+
+      /**
+       * The DROP event of a streaming drop - the chunks follow.
+       */
+      static <T> DropEvent<T> streaming(T src, DataFlavor[] flavors, DropTask task) {
+        DropEvent<T> event = dropped(src, null, flavors);
+        event.task = task;
+        return event;
+      }
+
+      static <T> DropEvent<T> files(T src, DropTask task, List<File> files) {
+        DropEvent<T> event = new DropEvent<>(src, Type.CHUNK, null);
+        event.task = task;
+        event.files = files;
+        return event;
+      }
+
+      static <T> DropEvent<T> bytes(T src, DropTask task, byte[] bytes) {
+        DropEvent<T> event = new DropEvent<>(src, Type.CHUNK, null);
+        event.task = task;
+        event.bytes = bytes;
+        return event;
+      }
+
+      static <T> DropEvent<T> complete(T src, DropTask task) {
+        DropEvent<T> event = new DropEvent<>(src, Type.COMPLETE, null);
+        event.task = task;
+        return event;
+      }
+
+      /**
+       * @return the flavors on offer (streaming drag and drop events)
+       */
+      public DataFlavor[] getFlavors() {
+        return flavors == null ? new DataFlavor[0] : flavors;
+      }
+
+      /**
+       * @return the files of a CHUNK event (streaming file list drops) otherwise empty
+       */
+      public List<File> getFiles() {
+        return files == null ? Collections.emptyList() : files;
+      }
+
+      /**
+       * @return the bytes of a CHUNK event (streaming stream drops) otherwise null
+       */
+      public byte[] getBytes() {
+        return bytes;
+      }
+
+      /**
+       * @return the progress of a streaming drop (DROP, CHUNK and COMPLETE events) otherwise null
+       */
+      public DropTask getTask() {
+        return task;
+      }
+
+      public T getSrc() {
+        return src;
+      }
+
+      public Type getType() {
+        return type;
+      }
+
+      public void ifTransferable(Consumer<Transferable> tr) {
+        if (transferable != null) {
+          tr.accept(transferable);
+        }
+      }
+
+      public Transferable getTransferable() {
+        return transferable;
+      }
+
+      public enum Type {
+        DROP, DRAGEXIT, DROPCHANGED, DRAGOVER, DRAGENTER, CHUNK, COMPLETE;
+      }
+
+    }
+
+  }
+
+  /**
+   * Shared, thread safe serializers. Gson caches the adapter for each type it has seen so these are
+   * created once and reused everywhere rather than per controller.
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   */
+  public static class Json {
+    private static final List<TypeAdapterFactory> factories = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(StringBuilder::new);
+    private static volatile Gson pretty, compact;
+
+    static {
+      register(new ObservableTypeAdapterFactory());
+    }
+
+    /**
+     * @return a shared pretty printing Gson
+     */
+    public static Gson pretty() {
+      Gson gson = pretty;
+      if (gson == null) {
+        synchronized (Json.class) {
+          gson = pretty;
+          if (gson == null) {
+            gson = pretty = create(true);
+          }
+        }
+      }
+      return gson;
+    }
+
+    /**
+     * @return a shared compact Gson
+     */
+    public static Gson compact() {
+      Gson gson = compact;
+      if (gson == null) {
+        synchronized (Json.class) {
+          gson = compact;
+          if (gson == null) {
+            gson = compact = create(false);
+          }
+        }
+      }
+      return gson;
+    }
+
+    /**
+     * Adds a type adapter factory to the shared serializers (they are recreated on next use - under
+     * the same lock, so one built from the old factories is never kept).
+     * 
+     * @param factory
+     */
+    public static synchronized void register(TypeAdapterFactory factory) {
+      factories.add(factory);
+      pretty = compact = null;
+    }
+
+    private static Gson create(boolean prettyPrinting) {
+      GsonBuilder builder = new GsonBuilder();
+      factories.forEach(builder::registerTypeAdapterFactory);
+      return (prettyPrinting ? builder.setPrettyPrinting() : builder).create();
+    }
+
+    /**
+     * Serializes the object with the compact Gson into a reused (per thread) buffer.
+     * 
+     * @param o
+     * @return the Json
+     */
+    public static String toJson(Object o) {
+      return toJson(compact(), o);
+    }
+
+    /**
+     * Serializes the object with the pretty Gson into a reused (per thread) buffer.
+     * 
+     * @param o
+     * @return the Json
+     */
+    public static String toPrettyJson(Object o) {
+      return toJson(pretty(), o);
+    }
+
+    private static String toJson(Gson gson, Object o) {
+      StringBuilder buffer = buffers.get();
+      buffer.setLength(0);
+      gson.toJson(o, buffer);
+      String json = buffer.toString();
+      if (buffer.capacity() > 65536) {
+        buffers.remove();
+      }
+      return json;
+    }
+
+    /**
+     * Writes the observable collections as their plain List/Map equivalent and reads them back as
+     * observable collections.
+     */
+    private static final class ObservableTypeAdapterFactory implements TypeAdapterFactory {
+
+      @Override
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        Type[] args = type.getType() instanceof ParameterizedType ? ((ParameterizedType) type.getType()).getActualTypeArguments() : null;
+        if (raw == Model.ObservableList.class) {
+          TypeAdapter<List<?>> delegate = (TypeAdapter<List<?>>) gson.getAdapter(TypeToken.getParameterized(List.class, args == null ? Object.class : args[0]));
+          return (TypeAdapter<T>) new TypeAdapter<Model.ObservableList<?>>() {
+
+            @Override
+            public void write(JsonWriter out, Model.ObservableList<?> value) throws IOException {
+              delegate.write(out, value);
+            }
+
+            @Override
+            public Model.ObservableList<?> read(JsonReader in) throws IOException {
+              List<?> list = delegate.read(in);
+              return list == null ? null : new Model.ObservableList(list);
+            }
+          };
+        }
+        if (raw == Model.ObservableMap.class) {
+          TypeAdapter<Map<?, ?>> delegate = (TypeAdapter<Map<?, ?>>) gson.getAdapter(TypeToken.getParameterized(Map.class, args == null ? Object.class : args[0], args == null ? Object.class : args[1]));
+          return (TypeAdapter<T>) new TypeAdapter<Model.ObservableMap<?, ?>>() {
+
+            @Override
+            public void write(JsonWriter out, Model.ObservableMap<?, ?> value) throws IOException {
+              delegate.write(out, value);
+            }
+
+            @Override
+            public Model.ObservableMap<?, ?> read(JsonReader in) throws IOException {
+              Map<?, ?> map = delegate.read(in);
+              if (map == null) {
+                return null;
+              }
+              Model.ObservableMap result = new Model.ObservableMap();
+              result.putAll(map);
+              return result;
+            }
+          };
+        }
+        return null;
+      }
+
+    }
+
+  }
+
+  /**
+   * Logging for the controllers. Loggers are per controller class - an application can call
+   * {@link #install()} to hand records to an {@link AsyncHandler} so formatting and output happen
+   * off the calling thread (nothing changes the logging configuration unless it does).
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   */
+  public static class Logging {
+    private static AsyncHandler handler;
+
+    /**
+     * @param type
+     * @return the logger for the class
+     */
+    public static Logger logger(Class<?> type) {
+      return Logger.getLogger(type.getName());
+    }
+
+    /**
+     * Moves the root logger's handlers behind a single asynchronous handler (which drops records
+     * when its buffer is full) - only done once, and only when the application calls it.
+     */
+    public static synchronized void install() {
+      if (handler == null) {
+        Logger root = Logger.getLogger("");
+        handler = new AsyncHandler(8192, root.getHandlers());
+        for (Handler h : root.getHandlers()) {
+          root.removeHandler(h);
+        }
+        root.addHandler(handler);
+      }
+    }
+
+    /**
+     * A log record with the context (usually the controller instance) it was logged from.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static class Record extends LogRecord {
+      private static final long serialVersionUID = 1L;
+      private final String context;
+
+      public Record(Level level, String msg, String context) {
+        super(level, msg);
+        this.context = context;
+      }
+
+      public String getContext() {
+        return context;
+      }
+
+    }
+
+    /**
+     * A handler that queues records in a ring buffer and publishes them to its delegate handlers on
+     * a background thread. When the buffer is full records are dropped (and the count reported)
+     * rather than blocking the caller.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static class AsyncHandler extends Handler {
+      private final RingBuffer<LogRecord> buffer;
+      private final Handler[] delegates;
+      private final AtomicLong dropped = new AtomicLong();
+      private final Thread thread;
+      private volatile boolean closed;
+
+      public AsyncHandler(int capacity, Handler... delegates) {
+        this.buffer = new RingBuffer<>(capacity);
+        this.delegates = delegates;
+        this.thread = new Thread(this::drain, "mvc-log");
+        this.thread.setDaemon(true);
+        this.thread.start();
+      }
+
+      @Override
+      public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+          return;
+        }
+        /*
+         * The source is inferred from the stack - so it must happen on the calling thread.
+         */
+        record.getSourceClassName();
+        if (!buffer.offer(record)) {
+          dropped.incrementAndGet();
+        }
+        LockSupport.unpark(thread);
+      }
+
+      /**
+       * Publishes until the buffer is empty then parks until the next record is offered (an unpark
+       * that comes in between leaves a permit so it can't be missed).
+       */
+      private void drain() {
+        while (!closed) {
+          if (!publishAll()) {
+            LockSupport.park(this);
+          }
+        }
+      }
+
+      /**
+       * @return true if anything was published
+       */
+      private synchronized boolean publishAll() {
+        boolean published = false;
+        for (LogRecord record = buffer.poll(); record != null; record = buffer.poll()) {
+          for (Handler delegate : delegates) {
+            delegate.publish(record);
+          }
+          published = true;
+        }
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+          LogRecord record = new LogRecord(Level.WARNING, "[Logging] dropped {0} records");
+          record.setParameters(new Object[] {count});
+          record.setSourceClassName(AsyncHandler.class.getName());
+          for (Handler delegate : delegates) {
+            delegate.publish(record);
+          }
+        }
+        return published;
+      }
+
+      @Override
+      public void flush() {
+        publishAll();
+        for (Handler delegate : delegates) {
+          delegate.flush();
+        }
+      }
+
+      @Override
+      public void close() throws SecurityException {
+        closed = true;
+        LockSupport.unpark(thread);
+        flush();
+        for (Handler delegate : delegates) {
+          delegate.close();
+        }
+      }
+
+    }
+
+  }
+
+  /**
+   * A bounded, lock free, multiple producer and consumer queue (an array of slots each with a
+   * sequence number saying whether it is ready to be written or read).
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   * @param <E>
+   */
+  public static final class RingBuffer<E> {
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+    private final int mask;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+      int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+      this.items = new AtomicReferenceArray<>(size);
+      this.sequences = new AtomicLongArray(size);
+      this.mask = size - 1;
+      for (int i = 0; i < size; i++) {
+        sequences.set(i, i);
+      }
+    }
+
+    /**
+     * @param item
+     * @return false if the buffer is full
+     */
+    public boolean offer(E item) {
+      while (true) {
+        long position = head.get();
+        int index = (int) position & mask;
+        long difference = sequences.get(index) - position;
+        if (difference == 0) {
+          if (head.compareAndSet(position, position + 1)) {
+            items.set(index, item);
+            sequences.set(index, position + 1);
+            return true;
+          }
+        } else if (difference < 0) {
+          return false;
+        }
+      }
+    }
+
+    /**
+     * @return the oldest item or null if the buffer is empty
+     */
+    public E poll() {
+      while (true) {
+        long position = tail.get();
+        int index = (int) position & mask;
+        long difference = sequences.get(index) - (position + 1);
+        if (difference == 0) {
+          if (tail.compareAndSet(position, position + 1)) {
+            E item = items.getAndSet(index, null);
+            sequences.set(index, position + mask + 1);
+            return item;
+          }
+        } else if (difference < 0) {
+          return null;
+        }
+      }
+    }
+
+    /**
+     * @return the (approximate when used concurrently) number of items
+     */
+    public int size() {
+      return (int) Math.max(0, head.get() - tail.get());
+    }
+
+    public int capacity() {
+      return mask + 1;
+    }
+
+  }
+
+  /**
+   * Runs UI work for the controllers (and observable collections). The default is the EDT, a
+   * {@link Dispatcher.Queue} can be set instead to run models and controllers headless and
+   * deterministically - eg: in tests or benchmarks.
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   */
+  public abstract static class Dispatcher {
+    public static final Dispatcher EDT = new Dispatcher() {
+
+      @Override
+      public void dispatch(Runnable task) {
+        SwingUtilities.invokeLater(task);
+      }
+
+      @Override
+      public boolean isDispatchThread() {
+        return SwingUtilities.isEventDispatchThread();
+      }
+    };
+
+    private static volatile Dispatcher current = EDT;
+
+    /**
+     * @return the default dispatcher
+     */
+    public static Dispatcher get() {
+      return current;
+    }
+
+    /**
+     * Sets the default dispatcher (used by every controller that hasn't had one set).
+     * 
+     * @param dispatcher
+     */
+    public static void set(Dispatcher dispatcher) {
+      current = dispatcher == null ? EDT : dispatcher;
+    }
+
+    /**
+     * Queue the task to run later on the dispatch thread.
+     * 
+     * @param task
+     */
+    public abstract void dispatch(Runnable task);
+
+    /**
+     * @return true if the current thread is the dispatch thread
+     */
+    public abstract boolean isDispatchThread();
+
+    /**
+     * Runs the task now if called on the dispatch thread - otherwise queue it.
+     * 
+     * @param task
+     */
+    public void run(Runnable task) {
+      if (isDispatchThread()) {
+        task.run();
+      } else {
+        dispatch(task);
+      }
+    }
+
+    /**
+     * A single threaded dispatcher that only runs tasks when asked to - the thread that creates it
+     * is the dispatch thread. Tasks dispatched from any thread are run in order by
+     * {@link #runPending()} or {@link #runAll()}.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static final class Queue extends Dispatcher {
+      private final java.util.Queue<Runnable> tasks = new ArrayDeque<>();
+      private final Thread thread = Thread.currentThread();
+
+      @Override
+      public void dispatch(Runnable task) {
+        synchronized (tasks) {
+          tasks.add(task);
+        }
+      }
+
+      @Override
+      public boolean isDispatchThread() {
+        return Thread.currentThread() == thread;
+      }
+
+      /**
+       * @return the number of queued tasks
+       */
+      public int size() {
+        synchronized (tasks) {
+          return tasks.size();
+        }
+      }
+
+      /**
+       * Runs the tasks queued so far (one "tick") - tasks they dispatch are left for the next tick.
+       * 
+       * @return the number of tasks run
+       */
+      public int runPending() {
+        int count = size();
+        for (int i = 0; i < count; i++) {
+          next().run();
+        }
+        return count;
+      }
+
+      /**
+       * Runs tasks until the queue is empty.
+       * 
+       * @return the number of tasks run
+       */
+      public int runAll() {
+        int count = 0;
+        for (Runnable task = next(); task != null; task = next()) {
+          task.run();
+          count++;
+        }
+        return count;
+      }
+
+      private Runnable next() {
+        if (!isDispatchThread()) {
+          throw new IllegalStateException("Tasks must be run on the thread that created the dispatcher");
+        }
+        synchronized (tasks) {
+          return tasks.poll();
+        }
+      }
+
+    }
+
+  }
+
+  /**
+   * Replicates a model tree to another process (typically a headless worker JVM over a local
+   * socket) - the property, list and map changes made on one side are sent as compact binary
+   * deltas and applied to the mirror on the other side (on its dispatcher). Either side can change
+   * the model so results are sent back the same way. The primary sends a snapshot of the whole
+   * tree when the endpoint opens and whenever the other side asks for one (when a frame is missed
+   * or can't be applied).
+   * 
+   * <p>
+   * Only fields of Models and the Model.ObservableList/ObservableMaps they hold are replicated -
+   * values (and map keys) that aren't strings, numbers or booleans are sent as Json (so need to be
+   * serializable by Gson, and keys need equals and hashCode). A value is only decoded as the class
+   * the peer names if that is a subclass of the property's (or list element's, map key's or value's)
+   * declared type - otherwise (and always for values declared as Object) it is decoded as the
+   * declared type. Changes made on both sides at once are not merged, the last one applied wins.
+   * 
+   * <p>
+   * Sending never blocks the dispatcher - if the peer falls so far behind that its queue of frames
+   * is full, changes are dropped until it catches up and then the two sides are brought back in
+   * line with a snapshot (sent by the primary or asked for by the other side, whose dropped changes
+   * are lost).
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   */
+  public static class Replication {
+    private static final int DELTA = 1, SNAPSHOT = 2, RESYNC = 3, FRAMES = 256;
+    /*
+     * The open endpoints - told about model changes by Model#propertyChanged, so the models in a
+     * replicated tree don't need listener support of their own.
+     */
+    private static final List<Endpoint> endpoints = new CopyOnWriteArrayList<>();
+    private static volatile boolean active;
+    private static final int SET = 1, LIST_ADD = 2, LIST_REMOVE = 3, LIST_SET = 4, MAP_PUT = 5, MAP_REMOVE = 6;
+    private static final ClassValue<Map<String, Method>> SETTERS = new ClassValue<Map<String, Method>>() {
+
+      @Override
+      protected Map<String, Method> computeValue(Class<?> type) {
+        Map<String, Method> setters = new HashMap<>();
+        try {
+          for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+            if (descriptor.getWriteMethod() != null) {
+              setters.put(descriptor.getName(), descriptor.getWriteMethod());
+            }
+          }
+        } catch (java.beans.IntrospectionException e) {
+          // fields are written directly
+        }
+        return setters;
+      }
+    };
+
+    /**
+     * Replicates the model over the socket.
+     * 
+     * @param root of the model tree
+     * @param socket
+     * @param primary true for the side that holds the state to start with (and sends snapshots)
+     * @return the endpoint
+     * @throws IOException
+     */
+    public static Endpoint connect(Model root, Socket socket, boolean primary) throws IOException {
+      socket.setTcpNoDelay(true);
+      return open(root, socket.getInputStream(), socket.getOutputStream(), primary);
+    }
+
+    /**
+     * Replicates the model over the streams (a pipe, a process's standard streams etc) - changes
+     * are applied on the default dispatcher.
+     * 
+     * @param root of the model tree
+     * @param in
+     * @param out
+     * @param primary true for the side that holds the state to start with (and sends snapshots)
+     * @return the endpoint
+     */
+    public static Endpoint open(Model root, InputStream in, OutputStream out, boolean primary) {
+      return new Endpoint(root, in, out, primary, Dispatcher.get());
+    }
+
+    static void changed(Model model, String name, Object oldValue) {
+      for (Endpoint endpoint : endpoints) {
+        Endpoint.Node node = endpoint.nodes.get(model);
+        if (node != null) {
+          node.propertyChanged(name, oldValue);
+        }
+      }
+    }
+
+    private static synchronized void register(Endpoint endpoint, boolean open) {
+      if (open) {
+        endpoints.add(endpoint);
+      } else {
+        endpoints.remove(endpoint);
+      }
+      active = !endpoints.isEmpty();
+    }
+
+    /**
+     * One end of a replicated model - listens to the local tree, sends one frame of changes per
+     * dispatcher tick and applies the frames received.
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static final class Endpoint implements Closeable {
+      private static final Logger logger = Logging.logger(Replication.class);
+      private static final byte[] CLOSE = new byte[0];
+      private final Model root;
+      private final DataInputStream in;
+      private final OutputStream out;
+      private final Dispatcher dispatcher;
+      private final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>(FRAMES);
+      private final Map<Object, Node> nodes = new IdentityHashMap<>();
+      private final Output batch = new Output();
+      private final AtomicLong sent = new AtomicLong(), received = new AtomicLong(), resyncs = new AtomicLong();
+      private final boolean primary;
+      private int count;
+      private long sequence, expected = 1;
+      private Object applyingTarget, applyingKey;
+      private Type applyingType;
+      private volatile boolean synced, closed, overflowed;
+
+      private Endpoint(Model root, InputStream in, OutputStream out, boolean primary, Dispatcher dispatcher) {
+        this.root = root;
+        this.primary = primary;
+        this.synced = primary;
+        this.in = new DataInputStream(new BufferedInputStream(in, 65536));
+        this.out = new BufferedOutputStream(out, 65536);
+        this.dispatcher = dispatcher;
+        dispatcher.run(() -> {
+          attach(root, null, null);
+          register(this, true);
+          if (primary) {
+            sendSnapshot();
+          }
+        });
+        start("mvc-replication-writer", this::write);
+        start("mvc-replication-reader", this::read);
+      }
+
+      private static void start(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+      }
+
+      /**
+       * Brings the two sides back in line - the primary sends a snapshot of the whole tree, any other
+       * endpoint asks the primary for one (and ignores changes until it arrives).
+       */
+      public void resync() {
+        resyncs.incrementAndGet();
+        if (primary) {
+          dispatcher.run(this::sendSnapshot);
+        } else {
+          synced = false;
+          send(new byte[] {RESYNC, 0});
+        }
+      }
+
+      /**
+       * @return true once the tree has been synced (always for the primary)
+       */
+      public boolean isSynced() {
+        return synced;
+      }
+
+      /**
+       * @return the number of changes sent
+       */
+      public long getSent() {
+        return sent.get();
       }
 
-      public void addObservableListListener(ObservableListListener listener) {
-        listeners().add(listener);
+      /**
+       * @return the number of changes received and applied
+       */
+      public long getReceived() {
+        return received.get();
       }
 
-      public void removeObservableListListener(ObservableListListener listener) {
-        listeners().remove(listener);
+      /**
+       * @return the number of snapshots asked for
+       */
+      public long getResyncs() {
+        return resyncs.get();
       }
 
-      public boolean supportsElementPropertyChanged() {
-        return true;
+      public boolean isClosed() {
+        return closed;
       }
 
-    }
+      /**
+       * Stops listening to the model and closes the streams.
+       */
+      @Override
+      public void close() {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        if (!frames.offer(CLOSE)) {
+          /*
+           * The peer isn't keeping up (or is gone) - what is still queued is dropped.
+           */
+          frames.clear();
+          frames.offer(CLOSE);
+        }
+        try {
+          in.close();
+        } catch (IOException e) {
+          // closing anyway
+        }
+        dispatcher.run(() -> {
+          register(this, false);
+          detach(root);
+        });
+      }
 
-  }
+      /*
+       * SENDING
+       */
 
-  public abstract static class Controller<M> {
-    /**
-     * This is the model, it is protected so it can be referred to directly which reduces the amount
-     * of code.
-     */
-    protected M m;
+      private void attach(Object value, Node parent, Object key) {
+        if (!(value instanceof Model || value instanceof Model.ObservableList || value instanceof Model.ObservableMap) || nodes.containsKey(value)) {
+          return;
+        }
+        Node node = new Node(value, parent, key);
+        nodes.put(value, node);
+        if (value instanceof Model) {
+          Model model = (Model) value;
+          Model.Snapshot.Shape shape = Model.Snapshot.SHAPES.get(model.getClass());
+          Object[] values = shape.read(model);
+          for (int i = 0; i < values.length; i++) {
+            attach(values[i], node, shape.names.get(i));
+          }
+        } else if (value instanceof Model.ObservableList) {
+          Model.ObservableList<?> list = (Model.ObservableList<?>) value;
+          list.forEach(element -> attach(element, node, null));
+          list.addObservableListListener(node);
+        } else {
+          Model.ObservableMap<?, ?> map = (Model.ObservableMap<?, ?>) value;
+          map.forEach((k, v) -> attach(v, node, k));
+          map.addObservableMapListener(node);
+        }
+      }
 
-    public Controller(M model) {
-      this.m = model;
-    }
+      private void detach(Object value) {
+        Node node = value == null ? null : nodes.remove(value);
+        if (node == null) {
+          return;
+        }
+        List<Object> children = new ArrayList<>();
+        if (value instanceof Model) {
+          children.addAll(Arrays.asList(Model.Snapshot.SHAPES.get(value.getClass()).read((Model) value)));
+        } else if (value instanceof Model.ObservableList) {
+          ((Model.ObservableList<?>) value).removeObservableListListener(node);
+          children.addAll((Model.ObservableList<?>) value);
+        } else {
+          ((Model.ObservableMap<?, ?>) value).removeObservableMapListener(node);
+          children.addAll(((Model.ObservableMap<?, ?>) value).values());
+        }
+        for (Object child : children) {
+          Node n = child == null ? null : nodes.get(child);
+          if (n != null && n.parent == node) {
+            detach(child);
+          }
+        }
+      }
 
-    private transient final List<Binder> binders = Collections.synchronizedList(new ArrayList<>());
+      /**
+       * Starts an operation in the batch - the type and path (the node's path plus the last part).
+       */
+      private Output op(int type, Node node, Object last, boolean keyed) {
+        List<Object> path = new ArrayList<>();
+        node.path(path);
+        if (keyed) {
+          path.add(last);
+        }
+        batch.write(type);
+        batch.varint(path.size());
+        for (Object part : path) {
+          batch.value(part, true);
+        }
+        if (count++ == 0) {
+          dispatcher.dispatch(this::flush);
+        }
+        return batch;
+      }
 
-    public class Binder {
-      private transient BindingGroup binding = new BindingGroup();
-      private String name;
+      private void flush() {
+        if (count == 0) {
+          return;
+        }
+        Output header = new Output();
+        header.write(DELTA);
+        header.varint(++sequence);
+        header.varint(count);
+        byte[] frame = new byte[header.length + batch.length];
+        System.arraycopy(header.bytes, 0, frame, 0, header.length);
+        System.arraycopy(batch.bytes, 0, frame, header.length, batch.length);
+        int changes = count;
+        batch.length = 0;
+        count = 0;
+        if (send(frame)) {
+          sent.addAndGet(changes);
+        }
+      }
 
-      public Binder(String name) {
-        this.name = name;
+      private void sendSnapshot() {
+        flush();
+        batch.names.clear();
+        batch.write(SNAPSHOT);
+        batch.varint(++sequence);
+        batch.value(root, false);
+        byte[] frame = Arrays.copyOf(batch.bytes, batch.length);
+        batch.length = 0;
+        send(frame);
       }
 
       /**
-       * Two way binding between the source property (of the model) and the target property of the
-       * target object (usually a UI control).
-       * 
-       * <p>
-       * Source and target properties can be provided as the property name "property" or an
-       * expression "${property > 0}"
+       * Queues a frame for the writer without waiting - if the queue is full the frame is dropped
+       * (and everything after it until the writer has caught up and the sides are resynced).
        * 
-       * @param srcProperty source property name or expression eg: "${prop}"
-       * @param trg target Object (usually a UI control)
-       * @param trgProperty target property name or expression eg: "${prop}"
-       * @return target Object
+       * @return true if the frame was queued
        */
-      public <T> T bindModelProperty(String srcProperty, T trg, String trgProperty) {
-        binding.addBinding(Bindings.createAutoBinding(AutoBinding.UpdateStrategy.READ_WRITE, m, createProperty(srcProperty), trg, createProperty(trgProperty)));
-        return trg;
+      private boolean send(byte[] frame) {
+        if (overflowed) {
+          return false;
+        }
+        /*
+         * Set before offering - so a writer that empties the queue after a failed offer always sees
+         * it.
+         */
+        overflowed = true;
+        if (frames.offer(frame)) {
+          overflowed = false;
+          return true;
+        }
+        logger.log(Level.WARNING, "Peer is not keeping up - dropping changes until it has caught up");
+        return false;
       }
 
       /**
-       * One way binding between the source property (of the model) and the target property of the
-       * target object (usually a UI control).
-       * 
-       * <p>
-       * Typically used to write a model property (changed by the controller) to the UI.
-       * 
-       * <p>
-       * Source and target properties can be provided as the property name "property" or an
-       * expression "${property > 0}"
-       * 
-       * @param srcProperty source property name or expression eg: "${prop}"
-       * @param trg target Object (usually a UI control)
-       * @param trgProperty target property name or expression eg: "${prop}"
-       * @return target Object
+       * Called on the dispatcher once the writer has caught up with an overflowed queue - the primary
+       * sends a snapshot, any other endpoint asks for one.
        */
-      public <T> T readModelProperty(String srcProperty, T trg, String trgProperty) {
-        binding.addBinding(Bindings.createAutoBinding(AutoBinding.UpdateStrategy.READ, m, createProperty(srcProperty), trg, createProperty(trgProperty)));
-        return trg;
+      private void recover() {
+        if (!overflowed || closed) {
+          return;
+        }
+        overflowed = false;
+        resyncs.incrementAndGet();
+        batch.length = 0;
+        count = 0;
+        if (primary) {
+          sendSnapshot();
+        } else {
+          synced = false;
+          send(new byte[] {RESYNC, 0});
+        }
       }
 
-      /**
-       * One way binding between the source property of the source object (usually a UI control) and
-       * the target property of the model.
-       * 
-       * <p>
-       * Typically used to write a model property from some event in the UI.
-       * 
-       * <p>
-       * Source and target properties can be provided as the property name "property" or an
-       * expression "${property > 0}"
-       * 
-       * @param srcProperty source property name or expression eg: "${prop}"
-       * @param src source Object (usually a UI control)
-       * @param trgProperty target property name or expression eg: "${prop}"
-       * @return source Object
-       */
-      public <T> T writeModelProperty(String srcProperty, T src, String trgProperty) {
-        binding.addBinding(Bindings.createAutoBinding(AutoBinding.UpdateStrategy.READ, src, createProperty(trgProperty), m, createProperty(srcProperty)));
-        return src;
+      private void write() {
+        Output length = new Output();
+        try (OutputStream out = this.out) {
+          while (true) {
+            byte[] frame = frames.take();
+            if (frame == CLOSE) {
+              return;
+            }
+            length.length = 0;
+            length.varint(frame.length);
+            out.write(length.bytes, 0, length.length);
+            out.write(frame);
+            if (frames.isEmpty()) {
+              out.flush();
+              if (overflowed) {
+                dispatcher.dispatch(this::recover);
+              }
+            }
+          }
+        } catch (IOException | InterruptedException e) {
+          failed(e);
+        }
       }
 
       /*
-       * SWING BINDINGS
+       * RECEIVING
        */
 
+      private void read() {
+        Input input = new Input();
+        try {
+          while (!closed) {
+            long length = 0;
+            for (int shift = 0;; shift += 7) {
+              int b = in.read();
+              if (b < 0) {
+                close();
+                return;
+              }
+              length |= (long) (b & 0x7F) << shift;
+              if (b < 0x80) {
+                break;
+              }
+            }
+            byte[] frame = new byte[(int) length];
+            in.readFully(frame);
+            input.reset(frame);
+            int kind = input.read();
+            long seq = input.varint();
+            if (kind == RESYNC) {
+              if (primary) {
+                dispatcher.dispatch(this::sendSnapshot);
+              }
+              continue;
+            }
+            if (seq != expected) {
+              logger.log(Level.WARNING, "Missed frame [expected:{0}][received:{1}] - resyncing", new Object[] {expected, seq});
+              resync();
+            }
+            expected = seq + 1;
+            if (kind == SNAPSHOT) {
+              input.names.clear();
+              Object snapshot = input.value();
+              synced = true;
+              dispatcher.dispatch(() -> apply(() -> applySnapshot((Encoded) snapshot)));
+            } else {
+              List<Op> ops = new ArrayList<>();
+              for (long i = input.varint(); i > 0; i--) {
+                ops.add(new Op(input));
+              }
+              if (synced) {
+                dispatcher.dispatch(() -> apply(() -> ops.forEach(this::apply)));
+                received.addAndGet(ops.size());
+              }
+            }
+          }
+        } catch (IOException | RuntimeException e) {
+          failed(e);
+        }
+      }
+
+      private void failed(Exception e) {
+        if (!closed) {
+          logger.log(Level.WARNING, "Replication failed", e);
+          close();
+        }
+      }
+
       /**
-       * Binds the list property of the model to the target JList.
-       * 
-       * @param listName list source property name or expression eg: "${mylists.listone}"
-       * @param target the JList
-       * @return the JList (allows for chaining)
+       * Applies remote changes - logging and resyncing if they can't be.
        */
-      public <T> JList<T> bindModelList(String listName, JList<T> target) {
+      private void apply(Runnable changes) {
         try {
-          @SuppressWarnings("unchecked")
-          List<T> list = (List<T>) createProperty(listName).getValue(m);
-          binding.addBinding(SwingBindings.createJListBinding(AutoBinding.UpdateStrategy.READ_WRITE, list, target));
-        } catch (IllegalArgumentException | SecurityException e) {
-          getLogger().log(Level.SEVERE, null, e);
+          changes.run();
+        } catch (RuntimeException e) {
+          logger.log(Level.WARNING, "Could not apply changes - resyncing", e);
+          resync();
+        } finally {
+          applyingTarget = applyingKey = null;
         }
-        return target;
       }
 
       /**
-       * Binds the list property of the model to the target JComboBox.
-       * 
-       * @param listProperty list source property name or expression eg: "${mylists.listone}"
-       * @param target JCombobox
-       * @return the JCombobox (allows for chaining)
+       * @return true if the change is the remote change being applied (which isn't sent back) -
+       *         rather than a change it caused
        */
-      public <T> JComboBox<T> bindModelList(String listProperty, JComboBox<T> target) {
+      private boolean echo(Node node, Object key) {
+        return node.target == applyingTarget && Objects.equals(key, applyingKey);
+      }
+
+      private void applySnapshot(Encoded snapshot) {
+        Model copy = (Model) snapshot.decode(root.getClass());
+        Model.Snapshot.Shape shape = Model.Snapshot.SHAPES.get(root.getClass());
+        Object[] values = shape.read(copy);
+        for (int i = 0; i < values.length; i++) {
+          applyingTarget = root;
+          applyingKey = shape.names.get(i);
+          set(root, shape.names.get(i), values[i]);
+        }
+      }
+
+      @SuppressWarnings("unchecked")
+      private void apply(Op op) {
+        Object target = resolve(op.path, op.path.length - (op.type == SET || op.type == MAP_PUT || op.type == MAP_REMOVE ? 1 : 0));
+        Object last = op.path.length == 0 ? null : op.path[op.path.length - 1];
+        if (op.type == MAP_PUT || op.type == MAP_REMOVE) {
+          last = decode(last, argument(applyingType, 0));
+        }
+        applyingTarget = target;
+        applyingKey = op.type == SET || op.type == MAP_PUT || op.type == MAP_REMOVE ? last : null;
+        switch (op.type) {
+          case SET:
+            set((Model) target, (String) last, op.values[0]);
+            break;
+          case MAP_PUT:
+            ((Model.ObservableMap<Object, Object>) target).put(last, decode(op.values[0], argument(applyingType, 1)));
+            break;
+          case MAP_REMOVE:
+            ((Model.ObservableMap<Object, Object>) target).remove(last);
+            break;
+          case LIST_ADD:
+            List<Object> elements = new ArrayList<>(op.values.length);
+            for (Object value : op.values) {
+              elements.add(decode(value, argument(applyingType, 0)));
+            }
+            ((Model.ObservableList<Object>) target).addAll(op.index, elements);
+            break;
+          case LIST_REMOVE:
+            ((Model.ObservableList<Object>) target).removeRange(op.index, op.index + op.count);
+            break;
+          case LIST_SET:
+            ((Model.ObservableList<Object>) target).set(op.index, decode(op.values[0], argument(applyingType, 0)));
+            break;
+          default:
+            throw new IllegalStateException("Unknown operation [" + op.type + "]");
+        }
+      }
+
+      /**
+       * Finds the target of the path - leaving its declared type (from the fields and type arguments
+       * along the way) in applyingType.
+       */
+      private Object resolve(Object[] path, int length) {
+        Object current = root;
+        Type type = root.getClass();
+        for (int i = 0; i < length; i++) {
+          Object part = path[i];
+          if (current instanceof Model) {
+            Model.Snapshot.Shape shape = Model.Snapshot.SHAPES.get(current.getClass());
+            Integer index = shape.index.get(part);
+            type = index == null ? Object.class : shape.fields[index].getGenericType();
+            current = get((Model) current, (String) part);
+          } else if (current instanceof List) {
+            type = argument(type, 0);
+            current = ((List<?>) current).get((Integer) part);
+          } else if (current instanceof Map) {
+            Object key = decode(part, argument(type, 0));
+            type = argument(type, 1);
+            current = ((Map<?, ?>) current).get(key);
+          } else {
+            throw new IllegalStateException("Can't resolve [" + Arrays.toString(path) + "]");
+          }
+        }
+        applyingType = type;
+        return current;
+      }
+
+      /**
+       * @return the type argument of a declared List/Map type (Object if it isn't known)
+       */
+      private static Type argument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+          Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+          if (index < arguments.length) {
+            Type argument = arguments[index];
+            if (argument instanceof WildcardType) {
+              argument = ((WildcardType) argument).getUpperBounds()[0];
+            }
+            return argument instanceof Class || argument instanceof ParameterizedType ? argument : Object.class;
+          }
+        }
+        return Object.class;
+      }
+
+      private static Object get(Model model, String name) {
+        Model.Snapshot.Shape shape = Model.Snapshot.SHAPES.get(model.getClass());
+        Integer index = shape.index.get(name);
+        if (index == null) {
+          throw new IllegalStateException("No property [" + name + "] in " + model.getClass().getName());
+        }
         try {
-          @SuppressWarnings("unchecked")
-          List<T> list = (List<T>) createProperty(listProperty).getValue(m);
-          binding.addBinding(SwingBindings.createJComboBoxBinding(AutoBinding.UpdateStrategy.READ_WRITE, list, target));
-        } catch (IllegalArgumentException | SecurityException e) {
-          getLogger().log(Level.SEVERE, null, e);
+          return shape.fields[index].get(model);
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+
+      private static void set(Model model, String name, Object value) {
+        Model.Snapshot.Shape shape = Model.Snapshot.SHAPES.get(model.getClass());
+        Integer index = shape.index.get(name);
+        if (index == null) {
+          throw new IllegalStateException("No property [" + name + "] in " + model.getClass().getName());
+        }
+        Field field = shape.fields[index];
+        if (value instanceof Encoded) {
+          value = ((Encoded) value).decode(field.getGenericType());
+        }
+        try {
+          Method setter = SETTERS.get(model.getClass()).get(name);
+          if (setter != null) {
+            setter.invoke(model, value);
+          } else {
+            Object old = field.get(model);
+            field.set(model, value);
+            model.propertyChanged(name, old, value);
+          }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+          throw new IllegalStateException("Could not set [" + name + "] in " + model.getClass().getName(), e);
         }
-        return target;
       }
 
       /**
-       * Binds the list property of the model to the target JComboBox. Sets the property defined by
-       * selectedProperty to the selected value of the ComboBox.
-       * 
-       * @param listProperty list property name or expression eg: "${customers}"
-       * @param selectedProperty selected property name or expression eg:"${selectedCustomer}"
-       * @param target JComboBox to bind
-       * @return the JCombobox (allows for chaining)
+       * Decodes values (and map keys) sent as Json - see {@link Encoded#decode(Type)}.
        */
-      public <T> JComboBox<T> bindModelList(String listProperty, String selectedProperty, JComboBox<T> target) {
-        JComboBox<T> box = bindModelList(listProperty, target);
-        bindModelProperty(selectedProperty, target, "${selectedItem}");
-        return box;
+      private static Object decode(Object value, Type declared) {
+        return value instanceof Encoded ? ((Encoded) value).decode(declared) : value;
+      }
+
+      /**
+       * Records the changes of a model (told by {@link Replication#changed(Model, String, Object)}),
+       * list or map in the tree in the batch.
+       */
+      private final class Node implements ObservableListListener, ObservableMapListener {
+        private final Object target;
+        private final Node parent;
+        private final Object key;
+        /*
+         * Where the elements of a list were last seen (indexed once, then kept as elements are added)
+         * - they are looked for from there, so an insert or removal only costs how far they moved.
+         */
+        private Map<Object, Integer> positions;
+
+        private Node(Object target, Node parent, Object key) {
+          this.target = target;
+          this.parent = parent;
+          this.key = key;
+        }
+
+        private void path(List<Object> path) {
+          if (parent == null) {
+            return;
+          }
+          parent.path(path);
+          path.add(parent.target instanceof List ? parent.indexOf(target) : key);
+        }
+
+        private int indexOf(Object element) {
+          List<?> list = (List<?>) target;
+          if (positions == null) {
+            positions = new IdentityHashMap<>(list.size() * 2);
+            for (int i = list.size() - 1; i >= 0; i--) {
+              positions.put(list.get(i), i);
+            }
+          }
+          Integer last = positions.get(element);
+          int size = list.size(), from = last == null ? 0 : Math.min(last, size - 1);
+          for (int d = 0; from - d >= 0 || from + d < size; d++) {
+            int index = from - d >= 0 && list.get(from - d) == element ? from - d : (from + d < size && list.get(from + d) == element ? from + d : -1);
+            if (index >= 0) {
+              positions.put(element, index);
+              return index;
+            }
+          }
+          throw new IllegalStateException("Element is no longer in its list");
+        }
+
+        private void replaced(Object oldValue, Object newValue, Object key) {
+          if (oldValue != newValue) {
+            detach(oldValue);
+            attach(newValue, this, key);
+          }
+        }
+
+        private void propertyChanged(String name, Object oldValue) {
+          if (name == null || !Model.Snapshot.SHAPES.get(target.getClass()).index.containsKey(name)) {
+            return;
+          }
+          Object value = get((Model) target, name);
+          replaced(oldValue, value, name);
+          if (!echo(this, name)) {
+            op(SET, this, name, true).value(value, false);
+          }
+        }
+
+        @Override
+        public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, int length) {
+          for (int i = index; i < index + length; i++) {
+            attach(list.get(i), this, null);
+            if (positions != null) {
+              positions.put(list.get(i), i);
+            }
+          }
+          if (!echo(this, null)) {
+            Output out = op(LIST_ADD, this, null, false);
+            out.varint(index);
+            out.varint(length);
+            for (int i = index; i < index + length; i++) {
+              out.value(list.get(i), false);
+            }
+          }
+        }
+
+        @Override
+        public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, @SuppressWarnings("rawtypes") List oldElements) {
+          for (Object element : oldElements) {
+            detach(element);
+            if (positions != null) {
+              positions.remove(element);
+            }
+          }
+          if (!echo(this, null)) {
+            Output out = op(LIST_REMOVE, this, null, false);
+            out.varint(index);
+            out.varint(oldElements.size());
+          }
+        }
+
+        @Override
+        public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, Object oldElement) {
+          replaced(oldElement, list.get(index), null);
+          if (positions != null) {
+            positions.remove(oldElement);
+            positions.put(list.get(index), index);
+          }
+          if (!echo(this, null)) {
+            Output out = op(LIST_SET, this, null, false);
+            out.varint(index);
+            out.value(list.get(index), false);
+          }
+        }
+
+        @Override
+        public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index) {
+          // elements that are models send their own changes
+        }
+
+        @Override
+        public void mapKeyAdded(@SuppressWarnings("rawtypes") ObservableMap map, Object key) {
+          mapKeyValueChanged(map, key, null);
+        }
+
+        @Override
+        public void mapKeyRemoved(@SuppressWarnings("rawtypes") ObservableMap map, Object key, Object value) {
+          detach(value);
+          if (!echo(this, key)) {
+            op(MAP_REMOVE, this, key, true);
+          }
+        }
+
+        @Override
+        public void mapKeyValueChanged(@SuppressWarnings("rawtypes") ObservableMap map, Object key, Object lastValue) {
+          Object value = map.get(key);
+          replaced(lastValue, value, key);
+          if (!echo(this, key)) {
+            op(MAP_PUT, this, key, true).value(value, false);
+          }
+        }
+
+      }
+
+    }
+
+    /**
+     * A decoded operation - the path and the values (still encoded if they were sent as Json).
+     */
+    private static final class Op {
+      private final int type;
+      private final Object[] path;
+      private int index, count;
+      private Object[] values;
+
+      private Op(Input input) {
+        this.type = input.read();
+        this.path = new Object[(int) input.varint()];
+        for (int i = 0; i < path.length; i++) {
+          path[i] = input.value();
+        }
+        if (type == LIST_ADD || type == LIST_REMOVE || type == LIST_SET) {
+          index = (int) input.varint();
+          count = type == LIST_SET ? 1 : (int) input.varint();
+        }
+        values = new Object[type == LIST_ADD ? count : (type == SET || type == MAP_PUT || type == LIST_SET ? 1 : 0)];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = input.value();
+        }
       }
 
-      public void bind() {
-        binding.bind();
+    }
+
+    /**
+     * A value sent as Json - decoded when applied (where the type of the property is known).
+     */
+    private static final class Encoded {
+      private final String type;
+      private final String json;
+
+      private Encoded(String type, String json) {
+        this.type = type;
+        this.json = json;
       }
 
       /**
-       * Unbind this binder
+       * The class named by the peer is only loaded (without being initialized) and used if it is a
+       * subclass of the declared type - values declared as Object or as an unrelated class are
+       * decoded as the declared type, so a peer can't have any class on the classpath created.
        */
-      public void unbind() {
-        binding.unbind();
+      private Object decode(Type declared) {
+        Type target = declared == null ? Object.class : declared;
+        Class<?> raw = TypeToken.get(target).getRawType();
+        if (raw != Object.class && !raw.getName().equals(type)) {
+          try {
+            Class<?> actual = Class.forName(type, false, Replication.class.getClassLoader());
+            if (raw.isAssignableFrom(actual)) {
+              target = actual;
+            }
+          } catch (ClassNotFoundException e) {
+            // decoded as the declared type
+          }
+        }
+        return Json.compact().fromJson(json, target);
       }
 
-      /**
-       * Unbind this and remove it from the binders
-       */
-      public void dispose() {
-        unbind();
-        binders.remove(this);
-      }
+    }
 
-      @Override
-      public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((name == null) ? 0 : name.hashCode());
-        return result;
+    /*
+     * ENCODING
+     */
+    private static final int NULL = 0, FALSE = 1, TRUE = 2, INT = 3, LONG = 4, DOUBLE = 5, FLOAT = 6, STRING = 7, NAME = 8, NAME_REF = 9, JSON = 10;
+    private static final int MAX_NAMES = 65536;
+
+    /**
+     * A growable buffer values are encoded into - integers as (zigzag) varints and names (property
+     * names, map keys and class names) sent once and then referred to by number.
+     */
+    private static final class Output {
+      private final Map<String, Integer> names = new HashMap<>();
+      private byte[] bytes = new byte[256];
+      private int length;
+
+      void write(int b) {
+        if (length == bytes.length) {
+          bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte) b;
       }
 
-      @Override
-      public boolean equals(Object obj) {
-        if (this == obj) {
-          return true;
+      void write(byte[] b) {
+        if (length + b.length > bytes.length) {
+          bytes = Arrays.copyOf(bytes, Math.max(length * 2, length + b.length));
         }
-        if (obj == null) {
-          return false;
+        System.arraycopy(b, 0, bytes, length, b.length);
+        length += b.length;
+      }
+
+      void varint(long value) {
+        while ((value & ~0x7FL) != 0) {
+          write((int) ((value & 0x7F) | 0x80));
+          value >>>= 7;
         }
-        if (getClass() != obj.getClass()) {
-          return false;
+        write((int) value);
+      }
+
+      void zigzag(long value) {
+        varint((value << 1) ^ (value >> 63));
+      }
+
+      void fixed(long value, int bytes) {
+        for (int i = (bytes - 1) * 8; i >= 0; i -= 8) {
+          write((int) (value >>> i));
         }
-        @SuppressWarnings("unchecked")
-        Binder other = (Binder) obj;
-        if (name == null) {
-          if (other.name != null) {
-            return false;
+      }
+
+      void string(String value) {
+        byte[] b = value.getBytes(StandardCharsets.UTF_8);
+        varint(b.length);
+        write(b);
+      }
+
+      void value(Object value, boolean name) {
+        if (value == null) {
+          write(NULL);
+        } else if (value instanceof Boolean) {
+          write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+          write(INT);
+          zigzag((Integer) value);
+        } else if (value instanceof Long) {
+          write(LONG);
+          zigzag((Long) value);
+        } else if (value instanceof Double) {
+          write(DOUBLE);
+          fixed(Double.doubleToRawLongBits((Double) value), 8);
+        } else if (value instanceof Float) {
+          write(FLOAT);
+          fixed(Float.floatToRawIntBits((Float) value), 4);
+        } else if (value instanceof String) {
+          Integer id = name ? names.get(value) : null;
+          if (id != null) {
+            write(NAME_REF);
+            varint(id);
+          } else if (name && names.size() < MAX_NAMES) {
+            names.put((String) value, names.size());
+            write(NAME);
+            string((String) value);
+          } else {
+            write(STRING);
+            string((String) value);
           }
-        } else if (!name.equals(other.name)) {
-          return false;
+        } else {
+          write(JSON);
+          value(value.getClass().getName(), true);
+          string(Json.toJson(value));
         }
-        return true;
       }
 
     }
 
-    public Binder binder() {
-      return binder("main");
-    }
-
     /**
-     * Provides a Binder object for binding UI components to the model properties fro
-     * 
-     * @param name
-     * @return
+     * Reads what an {@link Output} wrote.
      */
-    public Binder binder(String name) {
-      return binders.stream().filter(b -> b.name.equals(name)).findFirst().orElseGet(() -> {
-        Binder b = new Binder(name);
-        binders.add(b);
-        return b;
-      });
-    }
-
-    protected static <S, V> Property<S, V> createProperty(String property) {
-      return property.contains("${") ? ELProperty.create(property) : BeanProperty.create(property);
-    }
+    private static final class Input {
+      private final List<String> names = new ArrayList<>();
+      private byte[] bytes;
+      private int position;
+
+      void reset(byte[] bytes) {
+        this.bytes = bytes;
+        this.position = 0;
+      }
 
-    /**
-     * Binds each of the binders - typically called from the start method.
-     * 
-     */
-    public void update() {
-      this.binders.forEach((b) -> {
-        b.bind();
-      });
-    }
+      boolean available() {
+        return position < bytes.length;
+      }
 
-    /**
-     * Start this controller (ie: have it call it's own abstract on start method) while optionally
-     * performing the binding on all of the configured bindings.
-     * 
-     * @param bind
-     */
-    public void start(boolean bind) {
-      for (Method method : this.getClass().getDeclaredMethods()) {
+      int read() {
+        return bytes[position++] & 0xFF;
+      }
 
-        WatchListener listener = method.getAnnotation(WatchListener.class);
-        if (listener != null) {
-          for (String property : listener.properties()) {
-            watchModelProperty(property, method);
+      long varint() {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+          int b = read();
+          value |= (long) (b & 0x7F) << shift;
+          if (b < 0x80) {
+            return value;
           }
         }
       }
-      SwingUtilities.invokeLater(() -> {
-        if (bind) {
-          update();
-        }
-        onStart();
-      });
-    }
 
-    public void onStart() {};
+      long zigzag() {
+        long value = varint();
+        return (value >>> 1) ^ -(value & 1);
+      }
 
-    /*
-     * LOGGER
-     */
+      long fixed(int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+          value = (value << 8) | read();
+        }
+        return value;
+      }
 
-    private transient Logger logger;
+      String string() {
+        int length = (int) varint();
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+      }
+
+      Object value() {
+        int tag = read();
+        switch (tag) {
+          case NULL:
+            return null;
+          case FALSE:
+            return false;
+          case TRUE:
+            return true;
+          case INT:
+            return (int) zigzag();
+          case LONG:
+            return zigzag();
+          case DOUBLE:
+            return Double.longBitsToDouble(fixed(8));
+          case FLOAT:
+            return Float.intBitsToFloat((int) fixed(4));
+          case STRING:
+            return string();
+          case NAME:
+            String name = string();
+            names.add(name);
+            return name;
+          case NAME_REF:
+            return names.get((int) varint());
+          case JSON:
+            return new Encoded((String) value(), string());
+          default:
+            throw new IllegalStateException("Unknown value tag [" + tag + "]");
+        }
+      }
 
-    public Logger getLogger() {
-      return logger == null ? logger = Logger.getLogger(this.getClass().getSimpleName() + "-" + System.currentTimeMillis()) : logger;
     }
 
-    /*
-     * GSON TOOLS
-     */
+  }
 
-    private transient Gson gson;
+  /**
+   * Records a session - the events handled by controllers (actions, mouse, drop and watch
+   * listeners) and the changes made to their models from outside of handlers (by bindings, data
+   * loading etc) - into a compact binary trace. The trace can be replayed headless against new
+   * controllers at full speed, reporting the latency percentiles of each handler, so a recorded
+   * session becomes a repeatable benchmark.
+   * 
+   * <p>
+   * Mouse and drop events are replayed without their component or data (handlers get a stand in
+   * component and no transferable). Watch listeners are not replayed directly, they are called again
+   * by the replayed model changes.
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   */
+  public static class Trace {
+    private static final int MAGIC = 0x4d564354, VERSION = 1;
+    private static final int CONTROLLER = 1, ACTION = 2, MOUSE = 3, DROP = 4, WATCH = 5, CHANGE = 6;
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+    private static volatile Recorder recorder;
+    private static volatile Replayer replayer;
 
     /**
-     * A basic pretty serializer for Json Objects.
+     * Starts recording to the stream (until the recorder is closed).
      * 
-     * @return
+     * @param out
+     * @param controllers already started controllers to record (others are added when started)
+     * @return the recorder
      */
-    public Gson getGson() {
-      return gson == null ? gson = new GsonBuilder().setPrettyPrinting().create() : gson;
+    public static synchronized Recorder record(OutputStream out, Controller<?>... controllers) {
+      if (recorder != null || replayer != null) {
+        throw new IllegalStateException("Already tracing");
+      }
+      Recorder recorder = new Recorder(out);
+      for (Controller<?> controller : controllers) {
+        recorder.controller(controller);
+      }
+      return Trace.recorder = recorder;
     }
 
     /**
-     * Dump and object as Json to the logger - handy for debugging.
+     * Replays the trace against the controllers (matched by class, in the order they were recorded)
+     * on the calling thread - which should be the dispatch thread. A {@link Dispatcher.Queue} set as
+     * the default dispatcher is run after each event.
      * 
-     * @param o
+     * @param in the trace
+     * @param controllers started controllers to replay against
+     * @return the report
+     * @throws IOException
      */
-    public void logObject(Object o) {
-      getLogger().info(getGson().toJson(o));
+    public static Report replay(InputStream in, Controller<?>... controllers) throws IOException {
+      byte[] bytes = readAll(in);
+      Replication.Input input = new Replication.Input();
+      input.reset(bytes);
+      if (bytes.length < 5 || input.fixed(4) != MAGIC || input.varint() != VERSION) {
+        throw new IOException("Not a trace");
+      }
+      Replayer replayer = new Replayer(controllers);
+      synchronized (Trace.class) {
+        if (recorder != null || Trace.replayer != null) {
+          throw new IllegalStateException("Already tracing");
+        }
+        Trace.replayer = replayer;
+      }
+      try {
+        return replayer.replay(input);
+      } finally {
+        Trace.replayer = null;
+      }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[65536];
+      for (int read; (read = in.read(buffer)) >= 0;) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
     }
 
-    /*
-     * WATCH LISTENERS
-     */
     /**
-     * Defines a method as watching for changes of the specified properties. The method is called
-     * with a single PropertyWatchEvent<T> with the expected property type.
-     * 
-     * @author Jason Keeber <jason@keeber.org>
-     *
+     * Called by the controller around each handler - records it (unless it was called by another
+     * handler) and times it when replaying.
      */
-    @Retention(RetentionPolicy.RUNTIME)
-    @Target(ElementType.METHOD)
-    public @interface WatchListener {
-      String[] properties();
+    static void handle(Controller<?> controller, Method method, Object event, Callable<?> handler) throws Exception {
+      Recorder recorder = Trace.recorder;
+      Replayer replayer = Trace.replayer;
+      int[] depth = Trace.depth.get();
+      if (recorder != null && depth[0] == 0) {
+        recorder.handled(controller, method, event);
+      }
+      long start = System.nanoTime();
+      depth[0]++;
+      try {
+        handler.call();
+      } finally {
+        depth[0]--;
+        if (replayer != null) {
+          replayer.timed(controller.getClass().getSimpleName() + "#" + method.getName(), System.nanoTime() - start);
+        }
+      }
     }
 
     /**
-     * Internal method that processes the property watch annotations.
-     * 
-     * @param srcProperty
-     * @param method
+     * Called by {@link Model#propertyChanged(String, Object, Object)} - records changes made outside
+     * of handlers.
      */
-    protected void watchModelProperty(String srcProperty, Method method) {
-      Property<Object, Object> property = createProperty(srcProperty);
-      if (property.getValue(m) instanceof Model.ObservableMap<?, ?>) {
-        ((Model.ObservableMap<?, ?>) property.getValue(m)).addObservableMapListener(new ObservableMapListener() {
-
-          @Override
-          public void mapKeyAdded(@SuppressWarnings("rawtypes") ObservableMap arg0, Object arg1) {
-            try {
-              method.invoke(Controller.this, new PropertyWatchEvent<>(arg0, arg0, null));
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-              getLogger().log(Level.SEVERE, "Error invoking method", e);
-            }
-          }
-
-          @Override
-          public void mapKeyRemoved(@SuppressWarnings("rawtypes") ObservableMap arg0, Object arg1, Object arg2) {
-            try {
-              method.invoke(Controller.this, new PropertyWatchEvent<>(arg0, arg0, null));
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-              getLogger().log(Level.SEVERE, "Error invoking method", e);
-            }
-          }
+    static void changed(Model model, String name, Object oldValue, Object newValue) {
+      Recorder recorder = Trace.recorder;
+      if (recorder != null) {
+        recorder.changed(model, name, oldValue, newValue, depth.get()[0] == 0);
+      }
+    }
 
-          @Override
-          public void mapKeyValueChanged(@SuppressWarnings("rawtypes") ObservableMap arg0, Object arg1, Object arg2) {
-            try {
-              method.invoke(Controller.this, new PropertyWatchEvent<>(arg0, arg0, null));
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-              getLogger().log(Level.SEVERE, "Error invoking method", e);
-            }
-          }
-        });
-      } else {
-        property.addPropertyStateListener(m, new PropertyStateListener() {
+    static boolean tracing() {
+      return recorder != null || replayer != null;
+    }
 
-          @Override
-          public void propertyStateChanged(PropertyStateEvent pse) {
-            try {
-              method.invoke(Controller.this, new PropertyWatchEvent<>(pse.getOldValue(), pse.getNewValue(), pse));
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-              getLogger().log(Level.SEVERE, "Error invoking method", e);
+    private static Object resolve(Object root, String path) {
+      Object current = root;
+      if (!path.isEmpty()) {
+        for (String part : path.split("\\.")) {
+          if (current instanceof Model) {
+            Model.Snapshot.Shape shape = Model.Snapshot.SHAPES.get(current.getClass());
+            if (!shape.index.containsKey(part)) {
+              return null;
             }
+            current = Replication.Endpoint.get((Model) current, part);
+          } else if (current instanceof List) {
+            int index = Integer.parseInt(part);
+            current = index < ((List<?>) current).size() ? ((List<?>) current).get(index) : null;
+          } else if (current instanceof Map) {
+            current = ((Map<?, ?>) current).get(part);
+          } else {
+            return null;
           }
-        });
+        }
       }
+      return current;
     }
 
     /**
-     * Event passed from a Property Watch Event containing the old and new values.
+     * Writes the trace - records start with their type and the microseconds since the last record.
      * 
      * @author Jason Keeber <jason@keeber.org>
      *
-     * @param <T>
      */
-    public static final class PropertyWatchEvent<T> {
-      private T oldValue;
-      private T newValue;
-      private PropertyStateEvent event;
+    public static final class Recorder implements Closeable {
+      private final OutputStream out;
+      private final Replication.Output buffer = new Replication.Output();
+      private final Map<Controller<?>, Integer> ids = new IdentityHashMap<>();
+      private final List<Controller<?>> controllers = new ArrayList<>();
+      /*
+       * Where each model, list and map of the recorded controllers' models is - kept up to date by
+       * the model changes and list/map events rather than searched for.
+       */
+      private final Map<Object, Location> locations = new IdentityHashMap<>();
+      private final long start = System.nanoTime();
+      private long last, records, skipped;
+      private boolean stopped;
+
+      private Recorder(OutputStream out) {
+        this.out = out;
+        buffer.fixed(MAGIC, 4);
+        buffer.varint(VERSION);
+      }
 
-      PropertyWatchEvent(T oldValue, T newValue, PropertyStateEvent event) {
-        this.oldValue = oldValue;
-        this.newValue = newValue;
-        this.event = event;
+      /**
+       * @return the number of records written
+       */
+      public synchronized long getRecords() {
+        return records;
       }
 
-      public Optional<T> getOldValue() {
-        return Optional.ofNullable(oldValue);
+      /**
+       * @return the number of model changes skipped (the model isn't part of a recorded controller)
+       */
+      public synchronized long getSkipped() {
+        return skipped;
       }
 
-      public Optional<T> getNewValue() {
-        return Optional.ofNullable(newValue);
+      /**
+       * Stops recording and closes the stream.
+       */
+      @Override
+      public void close() throws IOException {
+        stop();
+        synchronized (this) {
+          write();
+          out.close();
+        }
       }
 
-      public PropertyStateEvent getEvent() {
-        return event;
+      /**
+       * Stops recording (the trace isn't the recorder any more) and stops listening to the models.
+       */
+      private void stop() {
+        synchronized (Trace.class) {
+          if (recorder == this) {
+            recorder = null;
+          }
+        }
+        synchronized (this) {
+          if (!stopped) {
+            stopped = true;
+            detachAll();
+          }
+        }
       }
 
-    }
+      synchronized int controller(Controller<?> controller) {
+        Integer id = ids.get(controller);
+        if (id == null) {
+          ids.put(controller, id = controllers.size());
+          controllers.add(controller);
+          if (!stopped) {
+            attach(controller.m, id, null, null);
+          }
+          record(CONTROLLER);
+          buffer.varint(id);
+          buffer.value(controller.getClass().getName(), true);
+        }
+        return id;
+      }
 
-    /*
-     * ACTIONS
-     */
-    /**
-     * Returns an action (named <b>name</b>) that will call the controller method <b>methodname</b>
-     * with an ActionEvent.
-     * 
-     * @param name of the action
-     * @param methodname to call on invoke
-     * @return
-     */
-    public Action addAction(String name, String methodname) {
-      return addAction(name, null, methodname);
-    }
+      private synchronized void handled(Controller<?> controller, Method method, Object event) {
+        int id = controller(controller);
+        if (event instanceof ActionEvent) {
+          ActionEvent ae = (ActionEvent) event;
+          record(ACTION, id, method);
+          buffer.value(ae.getActionCommand(), false);
+          buffer.varint(ae.getModifiers());
+        } else if (event instanceof Controller.MouseEvent) {
+          Controller.MouseEvent<?> me = (Controller.MouseEvent<?>) event;
+          java.awt.event.MouseEvent e = me.getNativeEvent();
+          record(MOUSE, id, method);
+          buffer.varint(me.getType().ordinal());
+          buffer.varint(e.getID());
+          buffer.zigzag(e.getX());
+          buffer.zigzag(e.getY());
+          buffer.varint(e.getButton());
+          buffer.varint(e.getClickCount());
+          buffer.varint(e.getModifiersEx());
+        } else if (event instanceof Controller.DropEvent) {
+          record(DROP, id, method);
+          buffer.varint(((Controller.DropEvent<?>) event).getType().ordinal());
+        } else {
+          record(WATCH, id, method);
+        }
+      }
+
+      /**
+       * Moves the locations below a replaced value and records the change (unless it was made by a
+       * handler).
+       */
+      private synchronized void changed(Model model, String name, Object oldValue, Object newValue, boolean record) {
+        if (stopped || model.getEquality(name).test(oldValue, newValue) || !Model.Snapshot.SHAPES.get(model.getClass()).index.containsKey(name)) {
+          return;
+        }
+        Location location = locations.get(model);
+        if (location != null) {
+          location.replaced(oldValue, newValue, name);
+        }
+        if (!record) {
+          return;
+        }
+        String path = location == null ? null : location.path();
+        if (location != null && (path == null || resolve(controllers.get(location.controller).m, path) != model)) {
+          /*
+           * Moved without a change (a field set directly) - the only time the models are indexed
+           * again.
+           */
+          detachAll();
+          for (int i = 0; i < controllers.size(); i++) {
+            attach(controllers.get(i).m, i, null, null);
+          }
+          location = locations.get(model);
+          path = location == null ? null : location.path();
+        }
+        if (path == null) {
+          skipped++;
+          return;
+        }
+        record(CHANGE);
+        buffer.varint(location.controller);
+        buffer.value(path.isEmpty() ? name : path + "." + name, true);
+        buffer.value(newValue, false);
+      }
 
-    /**
-     * Returns an action (named <b>name</b>, with icon <b>icon</b>) that will call the controller
-     * method <b>methodname</b> with an ActionEvent.
-     * 
-     * @param name of the action
-     * @param icon of the action
-     * @param methodname to call on invoke
-     * @return
-     */
-    public Action addAction(String name, Icon icon, String methodname) {
-      try {
-        return new AbstractAction(name, icon) {
+      private void record(int type, int controller, Method method) {
+        record(type);
+        buffer.varint(controller);
+        buffer.value(method.getName(), true);
+      }
 
-          @Override
-          public void actionPerformed(ActionEvent ae) {
-            try {
-              Method method = Controller.this.getClass().getDeclaredMethod(methodname, new Class[] {ActionEvent.class});
-              method.invoke(Controller.this, ae);
-            } catch (NoSuchMethodException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-              getLogger().log(Level.SEVERE, "Error getting method [" + methodname + "]", e);
+      private void record(int type) {
+        long now = (System.nanoTime() - start) / 1000;
+        buffer.write(type);
+        buffer.varint(now - last);
+        last = now;
+        records++;
+        if (buffer.length > 65536) {
+          try {
+            write();
+          } catch (IOException e) {
+            Logging.logger(Trace.class).log(Level.WARNING, "Error writing trace - recording stopped", e);
+            stop();
+          }
+        }
+      }
+
+      private void write() throws IOException {
+        out.write(buffer.bytes, 0, buffer.length);
+        buffer.length = 0;
+      }
+
+      private void attach(Object value, int controller, Location parent, String key) {
+        if (!(value instanceof Model || value instanceof Model.ObservableList || value instanceof Model.ObservableMap) || locations.containsKey(value)) {
+          return;
+        }
+        Location location = new Location(value, controller, parent, key);
+        locations.put(value, location);
+        if (value instanceof Model) {
+          Model.Snapshot.Shape shape = Model.Snapshot.SHAPES.get(value.getClass());
+          Object[] values = shape.read((Model) value);
+          for (int i = 0; i < values.length; i++) {
+            attach(values[i], controller, location, shape.names.get(i));
+          }
+        } else if (value instanceof Model.ObservableList) {
+          Model.ObservableList<?> list = (Model.ObservableList<?>) value;
+          list.forEach(element -> attach(element, controller, location, null));
+          list.addObservableListListener(location);
+        } else {
+          Model.ObservableMap<?, ?> map = (Model.ObservableMap<?, ?>) value;
+          map.forEach((k, v) -> {
+            if (k instanceof String) {
+              attach(v, controller, location, (String) k);
             }
+          });
+          map.addObservableMapListener(location);
+        }
+      }
+
+      private void detach(Object value) {
+        Location location = value == null ? null : locations.remove(value);
+        if (location == null) {
+          return;
+        }
+        List<Object> children = new ArrayList<>();
+        if (value instanceof Model) {
+          children.addAll(Arrays.asList(Model.Snapshot.SHAPES.get(value.getClass()).read((Model) value)));
+        } else if (value instanceof Model.ObservableList) {
+          ((Model.ObservableList<?>) value).removeObservableListListener(location);
+          children.addAll((Model.ObservableList<?>) value);
+        } else {
+          ((Model.ObservableMap<?, ?>) value).removeObservableMapListener(location);
+          children.addAll(((Model.ObservableMap<?, ?>) value).values());
+        }
+        for (Object child : children) {
+          Location l = child == null ? null : locations.get(child);
+          if (l != null && l.parent == location) {
+            detach(child);
           }
-        };
-      } catch (SecurityException e) {
-        getLogger().log(Level.SEVERE, "Error getting method", e);
+        }
       }
-      return null;
-    }
-    /*
-     * MOUSE EVENTS
-     */
-    /*
-     * MOUSE EVENTS
-     */
 
-    public <T extends JComponent> T addMouseListener(T comp, String methodname) {
-      comp.addMouseListener(addMouseListener(methodname));
-      return comp;
-    }
+      private void detachAll() {
+        for (Controller<?> controller : controllers) {
+          detach(controller.m);
+        }
+        for (Location location : new ArrayList<>(locations.values())) {
+          detach(location.target);
+        }
+      }
 
-    public MouseListener addMouseListener(String methodname) {
-      return new MouseAdapter() {
-        private Method method;
+      /**
+       * A model, list or map in the tree of a recorded controller's model - its path is worked out
+       * from its parent when a change is recorded.
+       */
+      private final class Location implements ObservableListListener, ObservableMapListener {
+        private final Object target;
+        private final int controller;
+        private final Location parent;
+        private final String key;
+        /*
+         * Where the elements of a list were last seen (indexed once, then kept as elements are added)
+         * - they are looked for from there, so an insert or removal only costs how far they moved.
+         */
+        private Map<Object, Integer> positions;
+
+        private Location(Object target, int controller, Location parent, String key) {
+          this.target = target;
+          this.controller = controller;
+          this.parent = parent;
+          this.key = key;
+        }
 
-        private void callMethod(java.awt.event.MouseEvent event, MouseEvent.Type type) {
-          try {
-            method = method == null ? method = Controller.this.getClass().getDeclaredMethod(methodname, new Class[] {MouseEvent.class}) : method;
-            method.invoke(Controller.this, new MouseEvent<Object>(event.getSource(), event, type));
-          } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            getLogger().log(Level.SEVERE, "Error getting mouse listener method [" + methodname + "]", e);
+        /**
+         * @return the path from the controller's model or null if it is no longer where it was
+         */
+        private String path() {
+          if (parent == null) {
+            return "";
+          }
+          String path = parent.path();
+          Object part = parent.target instanceof List ? parent.indexOf(target) : key;
+          if (path == null || part == null) {
+            return null;
           }
+          return path.isEmpty() ? part.toString() : path + "." + part;
         }
 
-        @Override
-        public void mouseClicked(java.awt.event.MouseEvent event) {
-          callMethod(event, MouseEvent.Type.CLICKED);
+        private Integer indexOf(Object element) {
+          List<?> list = (List<?>) target;
+          if (positions == null) {
+            positions = new IdentityHashMap<>(list.size() * 2);
+            for (int i = list.size() - 1; i >= 0; i--) {
+              positions.put(list.get(i), i);
+            }
+          }
+          Integer last = positions.get(element);
+          int size = list.size(), from = last == null ? 0 : Math.min(last, size - 1);
+          for (int d = 0; from - d >= 0 || from + d < size; d++) {
+            int index = from - d >= 0 && list.get(from - d) == element ? from - d : (from + d < size && list.get(from + d) == element ? from + d : -1);
+            if (index >= 0) {
+              positions.put(element, index);
+              return index;
+            }
+          }
+          positions.remove(element);
+          return null;
+        }
+
+        private void replaced(Object oldValue, Object newValue, String key) {
+          if (oldValue != newValue) {
+            Location old = oldValue == null ? null : locations.get(oldValue);
+            if (old != null && old.parent == this) {
+              detach(oldValue);
+            }
+            attach(newValue, controller, this, key);
+          }
         }
 
         @Override
-        public void mouseDragged(java.awt.event.MouseEvent event) {
-          callMethod(event, MouseEvent.Type.DRAGGED);
+        public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, int length) {
+          synchronized (Recorder.this) {
+            for (int i = index; i < index + length; i++) {
+              attach(list.get(i), controller, this, null);
+              if (positions != null) {
+                positions.put(list.get(i), i);
+              }
+            }
+          }
         }
 
         @Override
-        public void mouseEntered(java.awt.event.MouseEvent event) {
-          callMethod(event, MouseEvent.Type.ENTERED);
+        public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, @SuppressWarnings("rawtypes") List oldElements) {
+          synchronized (Recorder.this) {
+            for (Object element : oldElements) {
+              Location old = element == null ? null : locations.get(element);
+              if (old != null && old.parent == this) {
+                detach(element);
+              }
+              if (positions != null) {
+                positions.remove(element);
+              }
+            }
+          }
         }
 
         @Override
-        public void mouseExited(java.awt.event.MouseEvent event) {
-          callMethod(event, MouseEvent.Type.EXITED);
+        public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, Object oldElement) {
+          synchronized (Recorder.this) {
+            replaced(oldElement, list.get(index), null);
+            if (positions != null) {
+              positions.remove(oldElement);
+              positions.put(list.get(index), index);
+            }
+          }
         }
 
         @Override
-        public void mouseMoved(java.awt.event.MouseEvent event) {
-          callMethod(event, MouseEvent.Type.MOVED);
+        public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index) {
+          // elements that are models are told about their own changes
         }
 
         @Override
-        public void mousePressed(java.awt.event.MouseEvent event) {
-          callMethod(event, MouseEvent.Type.PRESSED);
+        public void mapKeyAdded(@SuppressWarnings("rawtypes") ObservableMap map, Object key) {
+          mapKeyValueChanged(map, key, null);
         }
 
         @Override
-        public void mouseReleased(java.awt.event.MouseEvent event) {
-          callMethod(event, MouseEvent.Type.RELEASED);
+        public void mapKeyRemoved(@SuppressWarnings("rawtypes") ObservableMap map, Object key, Object value) {
+          synchronized (Recorder.this) {
+            replaced(value, null, null);
+          }
         }
 
         @Override
-        public void mouseWheelMoved(MouseWheelEvent event) {
-          callMethod(event, MouseEvent.Type.WHEELMOVED);
+        public void mapKeyValueChanged(@SuppressWarnings("rawtypes") ObservableMap map, Object key, Object lastValue) {
+          if (key instanceof String) {
+            synchronized (Recorder.this) {
+              replaced(lastValue, map.get(key), (String) key);
+            }
+          }
         }
 
-      };
+      }
+
     }
 
-    public static final class MouseEvent<T> {
-      private java.awt.event.MouseEvent nativeEvent;
-      private Type type;
-      private T source;
+    /**
+     * Drives controllers from a trace and collects the handler latencies.
+     */
+    private static final class Replayer {
+      private final List<Controller<?>> available;
+      private final Map<Long, Controller<?>> controllers = new HashMap<>();
+      private final Map<String, long[]> latencies = new LinkedHashMap<>();
+      private final Map<String, Integer> counts = new HashMap<>();
+      private final JComponent component = new JComponent() {
+        private static final long serialVersionUID = 1L;
+      };
+      private long events, errors;
 
-      protected MouseEvent(T src, java.awt.event.MouseEvent mouseEvent, Type type) {
-        this.source = src;
-        this.nativeEvent = mouseEvent;
-        this.type = type;
+      private Replayer(Controller<?>[] controllers) {
+        this.available = new ArrayList<>(Arrays.asList(controllers));
       }
 
-      public enum Type {
-        CLICKED, DRAGGED, ENTERED, EXITED, MOVED, PRESSED, RELEASED, WHEELMOVED;
+      private void timed(String handler, long nanos) {
+        long[] values = latencies.get(handler);
+        int count = counts.getOrDefault(handler, 0);
+        if (values == null || count == values.length) {
+          latencies.put(handler, values = values == null ? new long[64] : Arrays.copyOf(values, count * 2));
+        }
+        values[count] = nanos;
+        counts.put(handler, count + 1);
       }
 
-      public java.awt.event.MouseEvent getNativeEvent() {
-        return nativeEvent;
+      private Report replay(Replication.Input input) {
+        long recorded = 0, start = System.nanoTime();
+        while (input.available()) {
+          int type = input.read();
+          recorded += input.varint();
+          Controller<?> controller = type == CONTROLLER ? null : controllers.get(input.varint());
+          events++;
+          try {
+            switch (type) {
+              case CONTROLLER:
+                long id = input.varint();
+                String name = (String) input.value();
+                for (Iterator<Controller<?>> it = available.iterator(); it.hasNext();) {
+                  Controller<?> candidate = it.next();
+                  if (candidate.getClass().getName().equals(name)) {
+                    controllers.put(id, candidate);
+                    it.remove();
+                    break;
+                  }
+                }
+                events--;
+                break;
+              case ACTION: {
+                String method = (String) input.value();
+                String command = (String) input.value();
+                int modifiers = (int) input.varint();
+                if (controller != null) {
+                  invoke(controller, method, ActionEvent.class, new ActionEvent(component, ActionEvent.ACTION_PERFORMED, command, modifiers));
+                }
+                break;
+              }
+              case MOUSE: {
+                String method = (String) input.value();
+                Controller.MouseEvent.Type mouse = Controller.MouseEvent.Type.values()[(int) input.varint()];
+                int eventId = (int) input.varint(), x = (int) input.zigzag(), y = (int) input.zigzag();
+                int button = (int) input.varint(), clicks = (int) input.varint(), modifiers = (int) input.varint();
+                if (controller != null) {
+                  java.awt.event.MouseEvent e = new java.awt.event.MouseEvent(component, eventId, System.currentTimeMillis(), modifiers, x, y, clicks, false, button);
+                  invoke(controller, method, Controller.MouseEvent.class, new Controller.MouseEvent<Object>(component, e, mouse));
+                }
+                break;
+              }
+              case DROP: {
+                String method = (String) input.value();
+                Controller.DropEvent.Type drop = Controller.DropEvent.Type.values()[(int) input.varint()];
+                if (controller != null) {
+                  invoke(controller, method, Controller.DropEvent.class, new Controller.DropEvent<Object>(component, drop, null));
+                }
+                break;
+              }
+              case WATCH:
+                input.value();
+                events--;
+                break;
+              case CHANGE: {
+                String path = (String) input.value();
+                Object value = input.value();
+                if (controller != null) {
+                  int dot = path.lastIndexOf('.');
+                  Object parent = resolve(controller.m, dot < 0 ? "" : path.substring(0, dot));
+                  if (!(parent instanceof Model)) {
+                    throw new IllegalStateException("Can't resolve [" + path + "]");
+                  }
+                  long changed = System.nanoTime();
+                  Replication.Endpoint.set((Model) parent, path.substring(dot + 1), value);
+                  timed("(model changes)", System.nanoTime() - changed);
+                }
+                break;
+              }
+              default:
+                throw new IllegalStateException("Unknown record [" + type + "]");
+            }
+          } catch (ReflectiveOperationException | RuntimeException e) {
+            errors++;
+            Logging.logger(Trace.class).log(Level.WARNING, "Error replaying record", e);
+          }
+          if (Dispatcher.get() instanceof Dispatcher.Queue) {
+            ((Dispatcher.Queue) Dispatcher.get()).runAll();
+          }
+        }
+        Map<String, long[]> sorted = new LinkedHashMap<>();
+        latencies.forEach((handler, values) -> {
+          long[] copy = Arrays.copyOf(values, counts.get(handler));
+          Arrays.sort(copy);
+          sorted.put(handler, copy);
+        });
+        return new Report(sorted, events, errors, recorded * 1000, System.nanoTime() - start);
       }
 
-      public Point getLocationOnScreen() {
-        return nativeEvent.getLocationOnScreen();
+      private void invoke(Controller<?> controller, String name, Class<?> type, Object event) throws ReflectiveOperationException {
+        Method method = controller.getClass().getDeclaredMethod(name, type);
+        controller.invokeHandler(method, event);
       }
 
-      public Point getPoint() {
-        return nativeEvent.getPoint();
-      }
+    }
 
-      public Type getType() {
-        return type;
+    /**
+     * The result of a replay - the latencies of each handler (and of applying the model changes).
+     * 
+     * @author Jason Keeber <jason@keeber.org>
+     *
+     */
+    public static final class Report {
+      private final Map<String, long[]> latencies;
+      private final long events, errors, recorded, elapsed;
+
+      private Report(Map<String, long[]> latencies, long events, long errors, long recorded, long elapsed) {
+        this.latencies = latencies;
+        this.events = events;
+        this.errors = errors;
+        this.recorded = recorded;
+        this.elapsed = elapsed;
       }
 
-      public T getSource() {
-        return source;
+      /**
+       * @return the handlers timed (Controller#method)
+       */
+      public Set<String> getHandlers() {
+        return Collections.unmodifiableSet(latencies.keySet());
       }
 
-    }
-
-    public <T extends JComponent> T addDroptargetListener(T comp, String methodname) {
-      comp.setDropTarget(new DropTarget(comp, DnDConstants.ACTION_COPY, addDroptargetListener(methodname)));
-      return comp;
-    }
-
-    public DropTargetListener addDroptargetListener(String methodname) {
-      return new DropTargetListener() {
-        private Method method;
+      /**
+       * @param handler
+       * @return the number of times it was called
+       */
+      public int getCount(String handler) {
+        long[] values = latencies.get(handler);
+        return values == null ? 0 : values.length;
+      }
 
-        private void callMethod(Object src, DropEvent.Type type, Transferable t) {
-          try {
-            method = method == null ? method = Controller.this.getClass().getDeclaredMethod(methodname, new Class[] {DropEvent.class}) : method;
-            method.invoke(Controller.this, new DropEvent<Object>(src, type, t));
-          } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            getLogger().log(Level.SEVERE, "Error getting drop listener method [" + methodname + "]", e);
-          }
+      /**
+       * @param handler
+       * @param percentile eg: 99.0
+       * @return the latency in nanoseconds
+       */
+      public long getPercentile(String handler, double percentile) {
+        long[] values = latencies.get(handler);
+        if (values == null || values.length == 0) {
+          return 0;
         }
+        int rank = (int) Math.ceil(percentile / 100 * values.length) - 1;
+        return values[Math.max(0, Math.min(values.length - 1, rank))];
+      }
 
-        @Override
-        public void dragEnter(DropTargetDragEvent dtde) {
-          dtde.acceptDrag(dtde.getDropAction());
-          callMethod(dtde.getSource(), DropEvent.Type.DRAGENTER, null);
-        }
+      /**
+       * @return the events replayed
+       */
+      public long getEvents() {
+        return events;
+      }
 
-        @Override
-        public void dragOver(DropTargetDragEvent dtde) {
-          dtde.acceptDrag(dtde.getDropAction());
-          callMethod(dtde.getSource(), DropEvent.Type.DRAGOVER, dtde.getTransferable());
+      /**
+       * @return the events that failed to replay
+       */
+      public long getErrors() {
+        return errors;
+      }
 
-        }
+      /**
+       * @return how long the recorded session took (nanoseconds)
+       */
+      public long getRecorded() {
+        return recorded;
+      }
 
-        @Override
-        public void dropActionChanged(DropTargetDragEvent dtde) {
-          dtde.acceptDrag(dtde.getDropAction());
-          callMethod(dtde.getSource(), DropEvent.Type.DROPCHANGED, dtde.getTransferable());
-        }
+      /**
+       * @return how long the replay took (nanoseconds)
+       */
+      public long getElapsed() {
+        return elapsed;
+      }
 
-        @Override
-        public void dragExit(DropTargetEvent dte) {
-          callMethod(dte.getSource(), DropEvent.Type.DRAGEXIT, null);
+      @Override
+      public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%d events (%d errors) recorded over %d ms replayed in %d ms%n", events, errors, recorded / 1000000, elapsed / 1000000));
+        sb.append(String.format("%-40s %8s %10s %10s %10s %10s%n", "handler", "count", "p50 us", "p90 us", "p99 us", "max us"));
+        for (String handler : latencies.keySet()) {
+          sb.append(String.format("%-40s %8d %10.1f %10.1f %10.1f %10.1f%n", handler, getCount(handler), getPercentile(handler, 50) / 1e3, getPercentile(handler, 90) / 1e3, getPercentile(handler, 99) / 1e3, getPercentile(handler, 100) / 1e3));
         }
+        return sb.toString();
+      }
 
-        @Override
-        public void drop(DropTargetDropEvent dtde) {
-          dtde.acceptDrop(dtde.getDropAction());
-          callMethod(dtde.getSource(), DropEvent.Type.DROP, dtde.getTransferable());
-        }
-      };
     }
 
-    public static final class DropEvent<T> {
-      private T src;
-      private Type type;
-      private Transferable transferable;
+  }
 
-      public DropEvent(T src, Type type, Transferable transferable) {
-        this.src = src;
-        this.type = type;
-        this.transferable = transferable;
+  /**
+   * Loads icons from resources on the {@link Workers} pool - scaled to the requested size, with a
+   * double size variant for HiDPI screens (from a <b>name@2x.ext</b> resource when there is one or
+   * from the image itself when it is big enough). Loaded icons are shared through an LRU cache.
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   */
+  public static class Icons {
+    private static final int CACHE_SIZE = 512;
+    private static final Map<String, CompletableFuture<Icon>> cache = new LinkedHashMap<String, CompletableFuture<Icon>>(64, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Icon>> eldest) {
+        return size() > CACHE_SIZE;
       }
+    };
+    private static final Map<Integer, Icon> placeholders = new HashMap<>();
 
-      public T getSrc() {
-        return src;
+    /**
+     * Returns the (cached) icon for the resource - loading it in the background if it isn't.
+     * 
+     * @param context class the resource is relative to (unless it starts with a slash)
+     * @param resource eg: "icons/save.png"
+     * @param size of the icon (width and height)
+     * @return the icon (completed exceptionally if it can't be loaded - which is cached too)
+     */
+    public static CompletableFuture<Icon> load(Class<?> context, String resource, int size) {
+      String pkg = context.getName().substring(0, Math.max(0, context.getName().lastIndexOf('.'))).replace('.', '/');
+      String name = resource.startsWith("/") ? resource : (pkg.isEmpty() ? "/" : "/" + pkg + "/") + resource;
+      String key = name + "#" + size;
+      CompletableFuture<Icon> icon;
+      synchronized (cache) {
+        icon = cache.get(key);
+        if (icon == null) {
+          cache.put(key, icon = CompletableFuture.supplyAsync(() -> decode(context, name, size), Workers.pool()));
+        }
       }
+      return icon;
+    }
 
-      public Type getType() {
-        return type;
+    /**
+     * @param size
+     * @return a blank icon of the size (to hold the space of an icon that is loading)
+     */
+    public static Icon placeholder(int size) {
+      synchronized (placeholders) {
+        return placeholders.computeIfAbsent(size, s -> new ImageIcon(new BufferedImage(s, s, BufferedImage.TYPE_INT_ARGB)));
       }
+    }
 
-      public void ifTransferable(Consumer<Transferable> tr) {
-        if (transferable != null) {
-          tr.accept(transferable);
-        }
+    /**
+     * Empties the cache.
+     */
+    public static void clear() {
+      synchronized (cache) {
+        cache.clear();
       }
+    }
 
-      public Transferable getTransferable() {
-        return transferable;
+    private static Icon decode(Class<?> context, String name, int size) {
+      try {
+        BufferedImage image = read(context, name);
+        if (image == null) {
+          throw new IllegalArgumentException("No image [" + name + "]");
+        }
+        int dot = name.lastIndexOf('.');
+        BufferedImage hidpi = dot > name.lastIndexOf('/') ? read(context, name.substring(0, dot) + "@2x" + name.substring(dot)) : null;
+        if (hidpi == null && Math.max(image.getWidth(), image.getHeight()) >= size * 2) {
+          hidpi = image;
+        }
+        Image scaled = scale(image, size);
+        return new ImageIcon(hidpi == null ? scaled : new BaseMultiResolutionImage(scaled, scale(hidpi, size * 2)));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
       }
+    }
 
-      public enum Type {
-        DROP, DRAGEXIT, DROPCHANGED, DRAGOVER, DRAGENTER;
+    private static BufferedImage read(Class<?> context, String name) throws IOException {
+      java.net.URL url = context.getResource(name);
+      return url == null ? null : ImageIO.read(url);
+    }
+
+    /**
+     * Scales to fit a square of the size (centred) - halving first for large reductions so the
+     * bilinear interpolation doesn't drop pixels.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+      int w = image.getWidth(), h = image.getHeight();
+      if (w == size && h == size && image.getType() == BufferedImage.TYPE_INT_ARGB) {
+        return image;
+      }
+      BufferedImage current = image;
+      while (Math.max(w, h) > size * 2) {
+        current = draw(current, w = Math.max(1, w / 2), h = Math.max(1, h / 2), w, h, 0, 0);
       }
+      double ratio = (double) size / Math.max(w, h);
+      int sw = Math.max(1, (int) Math.round(w * ratio)), sh = Math.max(1, (int) Math.round(h * ratio));
+      return draw(current, size, size, sw, sh, (size - sw) / 2, (size - sh) / 2);
+    }
 
+    private static BufferedImage draw(BufferedImage image, int width, int height, int w, int h, int x, int y) {
+      BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g = result.createGraphics();
+      try {
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(image, x, y, w, h, null);
+      } finally {
+        g.dispose();
+      }
+      return result;
     }
 
   }
 
+  /**
+   * A shared pool of daemon threads for work that should be kept off the EDT.
+   * 
+   * @author Jason Keeber <jason@keeber.org>
+   *
+   */
+  public static class Workers {
+    private static ExecutorService pool;
+
+    public static synchronized ExecutorService pool() {
+      if (pool == null) {
+        AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+          Thread thread = new Thread(r, "mvc-worker-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      return pool;
+    }
 
+  }
 
 }
@@ -116,7 +116,7 @@ public class Example1 {
      */
     @WatchListener(properties = {"address.street", "address.town", "address.region", "address.postcode"})
     public void onAddressChanged(PropertyWatchEvent<String> pwe) {
-      getLogger().log(Level.INFO, "[Change] [new:\n{0}\n]", new Object[] {getGson().toJson(m.address)});
+      logObject(Level.INFO, m.address);
     }
 
   }
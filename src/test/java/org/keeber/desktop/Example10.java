@@ -0,0 +1,161 @@
+package org.keeber.desktop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.jdesktop.observablecollections.ObservableListListener;
+
+/**
+ * Checks the memory mapped list - appends survive closing and reopening the file, appending carries
+ * on where the file left off, an append that was cut short is trimmed off when the file is opened
+ * and equality is identity.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example10 {
+
+  /**
+   * Fixed length records - a long per element.
+   */
+  private static final MVC.Model.MappedList.Codec<Long> LONGS = new MVC.Model.MappedList.Codec<Long>() {
+
+    @Override
+    public int length() {
+      return Long.BYTES;
+    }
+
+    @Override
+    public Long decode(ByteBuffer buffer) {
+      return buffer.getLong();
+    }
+
+    @Override
+    public byte[] encode(Long element) {
+      return ByteBuffer.allocate(Long.BYTES).putLong(element).array();
+    }
+  };
+
+  public static void main(String[] args) throws IOException {
+    int records = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    Path dir = Files.createTempDirectory("mapped");
+    try {
+      lines(dir.resolve("lines.log"), records);
+      longs(dir.resolve("longs.bin"), records);
+    } finally {
+      try (Stream<Path> files = Files.walk(dir)) {
+        files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+      }
+    }
+  }
+
+  private static void lines(Path file, int records) throws IOException {
+    List<String> events = new ArrayList<>();
+    List<String> batch = new ArrayList<>();
+    for (int i = 0; i < records; i++) {
+      batch.add(line(i));
+    }
+    try (MVC.Model.MappedList<String> list = MVC.Model.MappedList.open(file, MVC.Model.MappedList.Codec.utf8())) {
+      list.addObservableListListener(listener(events));
+      list.addAll(batch);
+      list.add("last");
+      check(events.equals(List.of("added 0+" + records, "added " + records + "+1")), "one added event per append, got " + events);
+      check(list.size() == records + 1 && list.get(records).equals("last"), "appended");
+      check(list.equals(list) && !list.equals(new ArrayList<>(list)), "equality by identity");
+      try {
+        list.add(0, "first");
+        check(false, "inserting to fail");
+      } catch (UnsupportedOperationException e) {
+        // only appends
+      }
+    }
+
+    try (MVC.Model.MappedList<String> list = MVC.Model.MappedList.open(file, MVC.Model.MappedList.Codec.utf8())) {
+      check(list.size() == records + 1, "the lines to be there after reopening, got " + list.size());
+      for (int i = 0; i < records; i += Math.max(1, records / 1000)) {
+        check(list.get(i).equals(line(i)), "line " + i + " to read back");
+      }
+      list.add("more");
+      check(list.size() == records + 2 && list.get(records).equals("last") && list.get(records + 1).equals("more"), "appending to carry on after reopening");
+    }
+
+    /*
+     * Data written without its index (cut short before the index was written) and half an index
+     * entry.
+     */
+    long length = Files.size(file);
+    Files.write(file, "torn".getBytes(), StandardOpenOption.APPEND);
+    try (MVC.Model.MappedList<String> list = MVC.Model.MappedList.open(file, MVC.Model.MappedList.Codec.utf8())) {
+      check(list.size() == records + 2 && Files.size(file) == length, "unindexed data trimmed");
+    }
+    Path index = file.resolveSibling(file.getFileName() + ".idx");
+    Files.write(file, "torn".getBytes(), StandardOpenOption.APPEND);
+    Files.write(index, new byte[] {0, 0, 0}, StandardOpenOption.APPEND);
+    try (MVC.Model.MappedList<String> list = MVC.Model.MappedList.open(file, MVC.Model.MappedList.Codec.utf8())) {
+      check(list.size() == records + 2 && Files.size(index) == (records + 2) * Long.BYTES, "the partial index entry trimmed");
+      list.add("after");
+      check(list.get(records + 1).equals("more") && list.get(records + 2).equals("after"), "appending after a torn append");
+    }
+    System.out.println(records + " lines appended, reopened and recovered from torn appends");
+  }
+
+  private static void longs(Path file, int records) throws IOException {
+    List<Long> batch = new ArrayList<>();
+    for (long i = 0; i < records; i++) {
+      batch.add(i * i);
+    }
+    try (MVC.Model.MappedList<Long> list = MVC.Model.MappedList.open(file, LONGS)) {
+      list.addAll(batch);
+    }
+    Files.write(file, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+    try (MVC.Model.MappedList<Long> list = MVC.Model.MappedList.open(file, LONGS)) {
+      check(list.size() == records && Files.size(file) == (long) records * Long.BYTES, "the partial record trimmed");
+      list.add(-1L);
+      check(list.get(records - 1) == (long) (records - 1) * (records - 1) && list.get(records) == -1L, "appending after the trimmed record");
+    }
+    System.out.println(records + " fixed length records appended and recovered from a torn append");
+  }
+
+  private static String line(int i) {
+    return "line " + i + (i % 7 == 0 ? " \u00fcn\u00efc\u00f6d\u00e9" : "");
+  }
+
+  private static ObservableListListener listener(List<String> events) {
+    return new ObservableListListener() {
+
+      @Override
+      public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, int length) {
+        events.add("added " + index + "+" + length);
+      }
+
+      @Override
+      public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, @SuppressWarnings("rawtypes") List oldElements) {
+        events.add("removed " + index);
+      }
+
+      @Override
+      public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, Object oldElement) {
+        events.add("replaced " + index);
+      }
+
+      @Override
+      public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index) {
+        events.add("changed " + index);
+      }
+    };
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+package org.keeber.desktop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.jdesktop.observablecollections.ObservableListListener;
+
+/**
+ * Checks the feed overflow policies (drop oldest, sample and block) and trimming the list to its
+ * maximum length - on a deterministic dispatcher so the queue is only drained when the test says.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example11 {
+
+  public static void main(String[] args) throws InterruptedException {
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+
+    /*
+     * Drop oldest - the queue keeps the newest elements.
+     */
+    MVC.Model.ObservableList<Integer> list = new MVC.Model.ObservableList<>();
+    List<String> events = listen(list);
+    MVC.Model.Feed<Integer> feed = new MVC.Model.Feed<>(list, 8, MVC.Model.Feed.Overflow.DROP_OLDEST, 0, dispatcher);
+    for (int i = 0; i < 20; i++) {
+      check(feed.publish(i), "drop oldest to queue every element");
+    }
+    dispatcher.runAll();
+    check(list.equals(range(12, 20)), "the newest 8 elements, got " + list);
+    check(feed.getDropped() == 12 && events.equals(List.of("added 0+8")), "12 dropped and one added event, got " + feed.getDropped() + " " + events);
+
+    /*
+     * Sample - one in every 4 elements published while the queue is full is kept.
+     */
+    list = new MVC.Model.ObservableList<>();
+    feed = new MVC.Model.Feed<>(list, 8, MVC.Model.Feed.Overflow.SAMPLE, 0, dispatcher);
+    feed.setSampleRate(4);
+    int kept = 0;
+    for (int i = 0; i < 40; i++) {
+      kept += feed.publish(i) ? 1 : 0;
+    }
+    dispatcher.runAll();
+    check(kept == 16, "8 queued and 8 sampled, got " + kept);
+    check(list.equals(List.of(11, 15, 19, 23, 27, 31, 35, 39)), "an even sample, got " + list);
+    check(feed.getDropped() == 32, "32 dropped, got " + feed.getDropped());
+
+    /*
+     * Block - the publisher waits for the dispatcher to drain the queue and nothing is lost.
+     */
+    MVC.Model.ObservableList<Integer> blocked = new MVC.Model.ObservableList<>();
+    MVC.Model.Feed<Integer> blocking = new MVC.Model.Feed<>(blocked, 8, MVC.Model.Feed.Overflow.BLOCK, 0, dispatcher);
+    Thread producer = new Thread(() -> IntStream.range(0, 1000).forEach(blocking::publish));
+    producer.start();
+    while (producer.isAlive() || dispatcher.size() > 0) {
+      dispatcher.runAll();
+      Thread.sleep(1);
+    }
+    dispatcher.runAll();
+    check(blocked.equals(range(0, 1000)) && blocking.getDropped() == 0, "every element in order, got " + blocked.size() + " dropped " + blocking.getDropped());
+    boolean[] published = new boolean[1];
+    Thread interrupted = new Thread(() -> {
+      IntStream.range(0, 8).forEach(blocking::publish);
+      Thread.currentThread().interrupt();
+      published[0] = blocking.publish(8);
+    });
+    interrupted.start();
+    interrupted.join();
+    check(!published[0] && blocking.getDropped() == 1, "an interrupted publish to give up and count as dropped");
+    dispatcher.runAll();
+
+    /*
+     * Trimming - a batch longer than the list is cut before it is added, then the head is trimmed.
+     */
+    list = new MVC.Model.ObservableList<>();
+    events = listen(list);
+    feed = new MVC.Model.Feed<>(list, 64, MVC.Model.Feed.Overflow.DROP_OLDEST, 10, dispatcher);
+    for (int i = 0; i < 25; i++) {
+      feed.publish(i);
+    }
+    dispatcher.runAll();
+    check(list.equals(range(15, 25)) && feed.getDropped() == 15, "the last 10 added, got " + list);
+    for (int i = 25; i < 28; i++) {
+      feed.publish(i);
+    }
+    dispatcher.runAll();
+    check(list.equals(range(18, 28)), "the head trimmed, got " + list);
+    check(events.equals(List.of("added 0+10", "added 10+3", "removed 0+3")), "one added and one removed event per drain, got " + events);
+
+    System.out.println("Feed overflow and trimming as expected");
+  }
+
+  private static List<Integer> range(int from, int to) {
+    return IntStream.range(from, to).boxed().collect(Collectors.toList());
+  }
+
+  private static List<String> listen(MVC.Model.ObservableList<Integer> list) {
+    List<String> events = new ArrayList<>();
+    list.addObservableListListener(new ObservableListListener() {
+
+      @Override
+      public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, int length) {
+        events.add("added " + index + "+" + length);
+      }
+
+      @Override
+      public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, @SuppressWarnings("rawtypes") List oldElements) {
+        events.add("removed " + index + "+" + oldElements.size());
+      }
+
+      @Override
+      public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index, Object oldElement) {
+        events.add("replaced " + index);
+      }
+
+      @Override
+      public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList list, int index) {
+        events.add("changed " + index);
+      }
+    });
+    return events;
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
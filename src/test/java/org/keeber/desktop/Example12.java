@@ -0,0 +1,137 @@
+package org.keeber.desktop;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks model snapshots - a snapshot doesn't change when the model does, an unchanged model gives
+ * back the same snapshot and a new snapshot shares every part that didn't change with the last one.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example12 {
+
+  public static class Customer extends MVC.Model {
+    private String name;
+    private Example1.Model.Address address = new Example1.Model.Address();
+    private ObservableList<Order> orders = new ObservableList<>();
+    private ObservableList<String> notes = new ObservableList<>();
+    private ObservableMap<String, String> tags = new ObservableMap<>();
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      propertyChanged("name", this.name, this.name = name);
+    }
+
+    public Example1.Model.Address getAddress() {
+      return address;
+    }
+
+    public ObservableList<Order> getOrders() {
+      return orders;
+    }
+
+    public ObservableList<String> getNotes() {
+      return notes;
+    }
+
+    public ObservableMap<String, String> getTags() {
+      return tags;
+    }
+
+  }
+
+  public static class Order extends MVC.Model {
+    private double amount;
+
+    public Order(double amount) {
+      this.amount = amount;
+    }
+
+    public double getAmount() {
+      return amount;
+    }
+
+    public void setAmount(double amount) {
+      propertyChanged("amount", this.amount, this.amount = amount);
+    }
+
+  }
+
+  public static void main(String[] args) {
+    int orders = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    Customer customer = new Customer();
+    customer.setName("jason");
+    customer.getAddress().setStreet("main st");
+    for (int i = 0; i < orders; i++) {
+      customer.getOrders().add(new Order(i));
+      customer.getNotes().add("note " + i);
+    }
+    customer.getTags().put("tier", "gold");
+
+    MVC.Model.Snapshot first = customer.snapshot();
+    check(customer.snapshot() == first, "the same snapshot while nothing changed");
+    check(first.<Double>get("orders.5.amount") == 5 && first.get("address.street").equals("main st"), "values read by path");
+
+    /*
+     * A nested change - only the path to it is copied.
+     */
+    customer.getAddress().setStreet("high st");
+    MVC.Model.Snapshot second = customer.snapshot();
+    check(second != first && first.get("address.street").equals("main st") && second.get("address.street").equals("high st"), "the old snapshot unchanged");
+    check(same(first, second, "orders", "notes", "tags"), "the unchanged collections shared");
+
+    customer.getOrders().get(5).setAmount(-5);
+    MVC.Model.Snapshot third = customer.snapshot();
+    check(first.<Double>get("orders.5.amount") == 5 && third.<Double>get("orders.5.amount") == -5, "the changed order copied");
+    check(third.get("orders") != second.get("orders") && same(second, third, "address", "notes", "tags", "orders.0", "orders.4", "orders.6", "orders." + (orders - 1)), "the other orders shared");
+
+    /*
+     * Collections are copied when they change (and can't be changed through the snapshot).
+     */
+    customer.getNotes().add("more");
+    customer.getTags().clear();
+    MVC.Model.Snapshot fourth = customer.snapshot();
+    check(third.<List<String>>get("notes").size() == orders && fourth.<List<String>>get("notes").size() == orders + 1, "the notes copied");
+    check(third.<Map<String, String>>get("tags").size() == 1 && fourth.<Map<String, String>>get("tags").isEmpty(), "the cleared tags copied");
+    check(same(third, fourth, "address", "orders"), "the address and orders shared");
+    try {
+      fourth.<List<String>>get("notes").add("through the snapshot");
+      check(false, "the snapshot list to be unmodifiable");
+    } catch (UnsupportedOperationException e) {
+      // immutable
+    }
+
+    /*
+     * Reading an unchanged tree is free - timed against the first snapshot which copies it all.
+     */
+    long start = System.nanoTime();
+    for (int i = 0; i < 1000; i++) {
+      customer.snapshot();
+    }
+    long unchanged = System.nanoTime() - start;
+    check(customer.snapshot() == fourth, "the same snapshot again");
+    System.out.printf("Snapshots as expected: %d orders, 1000 unchanged snapshots in %d us%n", orders, unchanged / 1000);
+  }
+
+  private static boolean same(MVC.Model.Snapshot a, MVC.Model.Snapshot b, String... paths) {
+    for (String path : paths) {
+      if (a.get(path) != b.get(path)) {
+        System.err.println("Not shared: " + path);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
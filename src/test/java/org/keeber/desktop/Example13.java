@@ -0,0 +1,262 @@
+package org.keeber.desktop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.jdesktop.observablecollections.ObservableListListener;
+
+/**
+ * Checks replacing the contents of an ObservableList with a keyed diff - the events replayed on a
+ * copy give the new list, only the elements outside the longest run kept in order are removed and
+ * inserted, and the asynchronous diff is computed again when the list changes while it runs.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example13 {
+
+  /**
+   * An element with a key (the id) and a value that can change.
+   */
+  public static final class Item {
+    private final int id;
+    private final int value;
+
+    public Item(int id, int value) {
+      this.id = id;
+      this.value = value;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Item && ((Item) o).id == id && ((Item) o).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, value);
+    }
+
+    @Override
+    public String toString() {
+      return id + ":" + value;
+    }
+
+  }
+
+  public static void main(String[] args) throws Exception {
+    int trials = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+    Random random = new Random(42);
+
+    /*
+     * A single move is one removal and one insertion - the rest stay where they are.
+     */
+    MVC.Model.ObservableList<Item> list = new MVC.Model.ObservableList<>(items(0, 1, 2, 3, 4));
+    List<String> events = new ArrayList<>();
+    list.addObservableListListener(new Replay(list, new ArrayList<>(list), events));
+    List<Item> moved = items(1, 2, 3, 4, 0);
+    list.replaceWith(moved, Item::getId);
+    check(events.equals(List.of("removed 0+1", "added 4+1")), "a move to be one removal and one insertion, got " + events);
+    check(list.get(0) == moved.get(0), "the new (equal) elements taken without events");
+
+    events.clear();
+    List<Item> next = new ArrayList<>(list);
+    next.set(2, new Item(3, 99));
+    next.set(3, new Item(4, 4));
+    list.replaceWith(next, Item::getId);
+    check(events.equals(List.of("replaced 2")), "a replaced event only for the element that changed, got " + events);
+
+    /*
+     * Random edits - replaying the events gives the new list and the number of elements moved is
+     * the minimum.
+     */
+    for (int trial = 0; trial < trials; trial++) {
+      List<Item> current = random(random, 1 + random.nextInt(60));
+      List<Item> target = edit(random, current);
+      list = new MVC.Model.ObservableList<>(current);
+      List<Item> mirror = new ArrayList<>(current);
+      events = new ArrayList<>();
+      Replay replay = new Replay(list, mirror, events);
+      list.addObservableListListener(replay);
+      list.replaceWith(target, Item::getId);
+      check(list.equals(target) && mirror.equals(target), "trial " + trial + " to end with the new list");
+      int run = longestRun(current, target);
+      check(replay.removed == current.size() - run && replay.added == target.size() - run, "trial " + trial + " to move only what is outside the longest run");
+    }
+
+    /*
+     * Asynchronous - diffed on a worker, applied on the dispatcher and diffed again there if the
+     * list changed in the mean time.
+     */
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+    List<Item> current = random(random, 20000);
+    List<Item> target = edit(random, current);
+    MVC.Model.ObservableList<Item> large = new MVC.Model.ObservableList<>(current);
+    CompletableFuture<Void> done = large.replaceWithAsync(target, Item::getId);
+    dispatcher.runAll();
+    large.add(0, new Item(-1, -1));
+    while (!done.isDone()) {
+      dispatcher.runAll();
+      Thread.sleep(1);
+    }
+    done.get();
+    check(large.equals(target), "the asynchronous replace to end with the new list");
+
+    /*
+     * ListIterator.set is a replacement.
+     */
+    events.clear();
+    list = new MVC.Model.ObservableList<>(items(0, 1, 2));
+    list.addObservableListListener(new Replay(list, new ArrayList<>(list), events));
+    for (ListIterator<Item> it = list.listIterator(); it.hasNext();) {
+      Item item = it.next();
+      it.set(new Item(item.id, item.value + 1));
+    }
+    check(events.equals(List.of("replaced 0", "replaced 1", "replaced 2")) && list.get(2).value == 3, "ListIterator.set to replace, got " + events);
+
+    System.out.println("Diff and patch as expected over " + trials + " random edits");
+  }
+
+  private static List<Item> items(int... ids) {
+    List<Item> items = new ArrayList<>();
+    for (int id : ids) {
+      items.add(new Item(id, id));
+    }
+    return items;
+  }
+
+  private static int next = 0;
+
+  private static List<Item> random(Random random, int size) {
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      items.add(new Item(next++, random.nextInt(3)));
+    }
+    return items;
+  }
+
+  /**
+   * Removes, inserts, moves and changes elements at random.
+   */
+  private static List<Item> edit(Random random, List<Item> current) {
+    List<Item> target = new ArrayList<>(current);
+    int edits = 1 + random.nextInt(Math.max(1, current.size() / 4));
+    for (int e = 0; e < edits; e++) {
+      int at = random.nextInt(target.size() + 1);
+      switch (random.nextInt(4)) {
+        case 0:
+          if (at < target.size()) {
+            target.remove(at);
+          }
+          break;
+        case 1:
+          target.add(at, new Item(next++, 0));
+          break;
+        case 2:
+          if (at < target.size()) {
+            target.add(random.nextInt(target.size()), target.remove(at));
+          }
+          break;
+        default:
+          if (at < target.size()) {
+            target.set(at, new Item(target.get(at).id, target.get(at).value + 1));
+          }
+      }
+    }
+    if (random.nextInt(10) == 0) {
+      Collections.shuffle(target, random);
+    }
+    return target;
+  }
+
+  /**
+   * The longest run of keys in the same order in both lists (quadratic - the lists are small).
+   */
+  private static int longestRun(List<Item> current, List<Item> target) {
+    List<Integer> seq = new ArrayList<>();
+    for (Item item : target) {
+      for (int i = 0; i < current.size(); i++) {
+        if (current.get(i).id == item.id) {
+          seq.add(i);
+        }
+      }
+    }
+    int[] best = new int[seq.size()];
+    int longest = 0;
+    for (int k = 0; k < seq.size(); k++) {
+      best[k] = 1;
+      for (int j = 0; j < k; j++) {
+        if (seq.get(j) < seq.get(k)) {
+          best[k] = Math.max(best[k], best[j] + 1);
+        }
+      }
+      longest = Math.max(longest, best[k]);
+    }
+    return longest;
+  }
+
+  /**
+   * Replays the events on a copy of the list.
+   */
+  private static final class Replay implements ObservableListListener {
+    private final List<Item> list, mirror;
+    private final List<String> events;
+    private int added, removed;
+
+    private Replay(List<Item> list, List<Item> mirror, List<String> events) {
+      this.list = list;
+      this.mirror = mirror;
+      this.events = events;
+    }
+
+    @Override
+    public void listElementsAdded(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList source, int index, int length) {
+      mirror.addAll(index, list.subList(index, index + length));
+      added += length;
+      events.add("added " + index + "+" + length);
+    }
+
+    @Override
+    public void listElementsRemoved(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList source, int index, @SuppressWarnings("rawtypes") List oldElements) {
+      List<Item> range = mirror.subList(index, index + oldElements.size());
+      if (!range.equals(oldElements)) {
+        throw new IllegalStateException("Removed " + oldElements + " but the copy had " + range);
+      }
+      range.clear();
+      removed += oldElements.size();
+      events.add("removed " + index + "+" + oldElements.size());
+    }
+
+    @Override
+    public void listElementReplaced(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList source, int index, Object oldElement) {
+      if (!mirror.get(index).equals(oldElement)) {
+        throw new IllegalStateException("Replaced " + oldElement + " but the copy had " + mirror.get(index));
+      }
+      mirror.set(index, list.get(index));
+      events.add("replaced " + index);
+    }
+
+    @Override
+    public void listElementPropertyChanged(@SuppressWarnings("rawtypes") org.jdesktop.observablecollections.ObservableList source, int index) {
+      events.add("changed " + index);
+    }
+
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
@@ -0,0 +1,167 @@
+package org.keeber.desktop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * Checks the model change streams - property, list and map changes as they happen, one batch per
+ * dispatcher tick, the new list followed when the property is set, an overflow change for a
+ * subscriber that couldn't keep up and completion on close. Delivered on the calling thread so
+ * every step is deterministic.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example14 {
+
+  public static class Model extends MVC.Model {
+    private String name;
+    private Example1.Model.Address address = new Example1.Model.Address();
+    private ObservableList<String> items = new ObservableList<>();
+    private ObservableMap<String, Integer> stock = new ObservableMap<>();
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      propertyChanged("name", this.name, this.name = name);
+    }
+
+    public Example1.Model.Address getAddress() {
+      return address;
+    }
+
+    public ObservableList<String> getItems() {
+      return items;
+    }
+
+    public void setItems(ObservableList<String> items) {
+      propertyChanged("items", this.items, this.items = items);
+    }
+
+    public ObservableMap<String, Integer> getStock() {
+      return stock;
+    }
+
+  }
+
+  /**
+   * Records what it is sent - requesting everything unless told otherwise.
+   */
+  public static final class Recorder<T> implements Flow.Subscriber<T> {
+    private final List<String> items = new ArrayList<>();
+    private final long initial;
+    private Flow.Subscription subscription;
+    private boolean complete;
+
+    public Recorder(long initial) {
+      this.initial = initial;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(initial);
+    }
+
+    @Override
+    public void onNext(T item) {
+      items.add(item.toString());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      items.add("error " + throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      complete = true;
+    }
+
+  }
+
+  public static void main(String[] args) {
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+    Executor direct = Runnable::run;
+    Model model = new Model();
+
+    MVC.Model.ChangePublisher name = model.changes("name", direct, 16);
+    MVC.Model.ChangePublisher street = model.changes("address.street", direct, 16);
+    MVC.Model.ChangePublisher items = model.changes("items", direct, 16);
+    MVC.Model.ChangePublisher stock = model.changes("stock", direct, 16);
+    Recorder<MVC.Model.Change> names = new Recorder<>(Long.MAX_VALUE), streets = new Recorder<>(Long.MAX_VALUE);
+    Recorder<MVC.Model.Change> elements = new Recorder<>(Long.MAX_VALUE), keys = new Recorder<>(Long.MAX_VALUE);
+    Recorder<List<MVC.Model.Change>> batches = new Recorder<>(Long.MAX_VALUE);
+    name.subscribe(names);
+    street.subscribe(streets);
+    items.subscribe(elements);
+    items.batches().subscribe(batches);
+    stock.subscribe(keys);
+
+    model.setName("jason");
+    model.getAddress().setStreet("main st");
+    model.getItems().add("a");
+    model.getItems().add("b");
+    model.getItems().set(0, "c");
+    model.getItems().remove(1);
+    model.getStock().put("apples", 1);
+    model.getStock().put("apples", 2);
+    model.getStock().remove("apples");
+    dispatcher.runAll();
+
+    check(names.items.equals(List.of("CHANGED name null -> jason")), "the name change, got " + names.items);
+    check(streets.items.equals(List.of("CHANGED address.street null -> main st")), "the nested change, got " + streets.items);
+    check(elements.items.equals(List.of("ADDED items[0] null -> [a]", "ADDED items[1] null -> [b]", "REPLACED items[0] a -> c", "REMOVED items[1] [b] -> null")), "the list changes, got " + elements.items);
+    check(keys.items.equals(List.of("ADDED stock[apples] null -> 1", "CHANGED stock[apples] 1 -> 2", "REMOVED stock[apples] 2 -> null")), "the map changes, got " + keys.items);
+    check(batches.items.size() == 1 && batches.items.get(0).equals(elements.items.toString()), "one batch for the tick, got " + batches.items);
+
+    /*
+     * A new list - published as a change and followed (the old one is no longer listened to).
+     */
+    elements.items.clear();
+    MVC.Model.ObservableList<String> old = model.getItems();
+    model.setItems(new MVC.Model.ObservableList<>());
+    old.add("old");
+    model.getItems().add("new");
+    check(elements.items.equals(List.of("CHANGED items [c] -> []", "ADDED items[0] null -> [new]")), "the new list followed, got " + elements.items);
+
+    /*
+     * A subscriber that stops requesting - once its buffer is full it misses changes and is told
+     * how many with the first change it gets after them.
+     */
+    MVC.Model.ChangePublisher small = model.changes("name", direct, 2);
+    Recorder<MVC.Model.Change> slow = new Recorder<>(1);
+    small.subscribe(slow);
+    for (int i = 0; i < 10; i++) {
+      model.setName("name " + i);
+    }
+    long dropped = small.getDropped();
+    check(dropped > 0, "changes dropped for the slow subscriber");
+    slow.subscription.request(Long.MAX_VALUE);
+    model.setName("last");
+    String overflow = slow.items.get(slow.items.size() - 1);
+    check(overflow.startsWith("OVERFLOW name"), "the overflow change, got " + slow.items);
+    check(slow.items.size() - 1 + dropped + 1 == 11, "every change either delivered or counted, got " + slow.items + " dropped " + dropped);
+    check(names.items.size() == 12, "the other subscriber to get every change, got " + names.items.size());
+
+    name.close();
+    small.close();
+    check(names.complete && slow.complete, "the subscribers completed on close");
+    model.setName("after");
+    check(names.items.size() == 12, "no changes after close");
+
+    System.out.println("Change streams as expected: " + dropped + " changes dropped for the slow subscriber");
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
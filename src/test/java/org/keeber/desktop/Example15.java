@@ -0,0 +1,141 @@
+package org.keeber.desktop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JTable;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * Checks the table binding - each list event becomes the narrowest table event (the rows inserted,
+ * deleted or updated rather than the whole table changed), cached values are only read again once
+ * their row changes and compiled property columns read and write the element.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example15 {
+
+  public static class Person extends MVC.Model {
+    private String name;
+    private int age;
+
+    public Person(String name, int age) {
+      this.name = name;
+      this.age = age;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      propertyChanged("name", this.name, this.name = name);
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      propertyChanged("age", this.age, this.age = age);
+    }
+
+  }
+
+  public static class Model extends MVC.Model {
+    private ObservableList<Person> people = new ObservableList<>();
+
+    public ObservableList<Person> getPeople() {
+      return people;
+    }
+
+  }
+
+  public static class Controller extends MVC.Controller<Model> {
+
+    public Controller(Model model) {
+      super(model);
+    }
+
+  }
+
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+
+    Model model = new Model();
+    for (int i = 0; i < 1000; i++) {
+      model.getPeople().add(new Person("person " + i, i % 90));
+    }
+    AtomicInteger reads = new AtomicInteger();
+    Controller ctrl = new Controller(model);
+    JTable table = ctrl.binder().bindModelTable("people", new JTable(), true, MVC.Controller.Column.property("Name", Person.class, "name"), MVC.Controller.Column.of("Age", Integer.class, person -> {
+      reads.incrementAndGet();
+      return person.getAge();
+    }, Person::setAge));
+    ctrl.start(true);
+    dispatcher.runAll();
+
+    check(table.getModel() instanceof MVC.Controller.ObservableTableModel && table.getRowSorter() instanceof TableRowSorter, "the table model and row sorter installed");
+    check(table.getRowCount() == 1000 && table.getModel().getColumnClass(0) == String.class && table.getModel().getColumnClass(1) == Integer.class, "1000 rows and the column types");
+    List<String> events = new ArrayList<>();
+    table.getModel().addTableModelListener(e -> events.add(type(e) + " " + e.getFirstRow() + "-" + e.getLastRow()));
+
+    /*
+     * List events become row events.
+     */
+    model.getPeople().add(new Person("added", 1));
+    model.getPeople().addAll(10, List.of(new Person("a", 1), new Person("b", 2), new Person("c", 3)));
+    model.getPeople().removeRange(20, 25);
+    model.getPeople().set(5, new Person("replaced", 5));
+    Person changed = model.getPeople().get(7);
+    changed.setName("renamed");
+    model.getPeople().fileElementChanged(changed);
+    check(events.equals(List.of("insert 1000-1000", "insert 10-12", "delete 20-24", "update 5-5", "update 7-7")), "the narrowest table events, got " + events);
+    check(table.getRowCount() == 999 && table.getModel().getValueAt(7, 0).equals("renamed") && table.getModel().getValueAt(10, 0).equals("a"), "the rows where the list has them");
+
+    /*
+     * Cached values are read once - until the row changes.
+     */
+    reads.set(0);
+    for (int i = 0; i < 3; i++) {
+      table.getModel().getValueAt(100, 1);
+    }
+    check(reads.get() == 1, "the value read once, read " + reads.get() + " times");
+    model.getPeople().fileElementChanged(model.getPeople().get(100));
+    table.getModel().getValueAt(100, 1);
+    check(reads.get() == 2, "the value read again after the row changed");
+
+    /*
+     * Editing writes the element through the column.
+     */
+    events.clear();
+    table.getModel().setValueAt(42, 3, 1);
+    check(model.getPeople().get(3).getAge() == 42 && table.getModel().getValueAt(3, 1).equals(42) && events.equals(List.of("update 3-3")), "the edit written and the row updated, got " + events);
+    check(table.getModel().isCellEditable(0, 0) && table.getModel().isCellEditable(0, 1), "both columns editable");
+
+    System.out.println("Table events as expected: " + table.getRowCount() + " rows");
+  }
+
+  private static String type(TableModelEvent e) {
+    switch (e.getType()) {
+      case TableModelEvent.INSERT:
+        return "insert";
+      case TableModelEvent.DELETE:
+        return "delete";
+      default:
+        return "update";
+    }
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
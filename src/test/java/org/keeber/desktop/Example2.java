@@ -0,0 +1,51 @@
+package org.keeber.desktop;
+
+import java.util.logging.Level;
+
+import javax.swing.JTextField;
+
+/**
+ * Runs the Example1 model and controller headless on a deterministic dispatcher - driving model
+ * changes through the bindings and watch listeners and measuring the throughput.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example2 {
+
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    int changes = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+
+    Example1.Model model = new Example1.Model();
+    Example1.Controller ctrl = new Example1.Controller(model);
+    ctrl.getLogger().setLevel(Level.WARNING);
+    /*
+     * The same bindings the Example1 view makes - without the frame.
+     */
+    JTextField name = ctrl.binder().bindModelProperty("name", new JTextField(30), "text");
+    JTextField street = ctrl.binder().bindModelProperty("address.street", new JTextField(30), "text");
+    ctrl.start(true);
+    dispatcher.runAll();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < changes; i++) {
+      model.setName("name-" + i);
+      model.getAddress().setStreet("street-" + i);
+      if (i % 1000 == 0) {
+        dispatcher.runPending();
+      }
+    }
+    dispatcher.runAll();
+    long elapsed = System.nanoTime() - start;
+
+    if (!name.getText().equals(model.getName()) || !street.getText().equals(model.getAddress().getStreet())) {
+      throw new IllegalStateException("Bindings out of sync");
+    }
+    System.out.printf("%d changes in %d ms (%.0f changes/s)%n", changes * 2, elapsed / 1000000, changes * 2 / (elapsed / 1e9));
+  }
+
+}
@@ -0,0 +1,79 @@
+package org.keeber.desktop;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import javax.swing.JTextField;
+
+/**
+ * Opens and closes a lot of Example1 controllers (each with a child controller) on one model and
+ * checks nothing is left attached to the model once they are disposed - and that the disposed
+ * controllers (and the models of controllers that had their own) can be collected.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example3 {
+
+  public static void main(String[] args) throws InterruptedException {
+    System.setProperty("java.awt.headless", "true");
+    int controllers = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+
+    Example1.Model model = new Example1.Model();
+    int modelListeners = listeners(model), addressListeners = listeners(model.getAddress());
+    List<WeakReference<Object>> closed = new ArrayList<>(), models = new ArrayList<>();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < controllers; i++) {
+      Example1.Controller ctrl = new Example1.Controller(model);
+      ctrl.getLogger().setLevel(Level.WARNING);
+      ctrl.binder().bindModelProperty("name", new JTextField(30), "text");
+      ctrl.binder("address").bindModelProperty("address.street", new JTextField(30), "text");
+      Example1.Controller child = ctrl.addChild(new Example1.Controller(model));
+      child.binder().readModelProperty("address.town", new JTextField(30), "text");
+      Example1.Model own = new Example1.Model();
+      Example1.Controller other = ctrl.addChild(new Example1.Controller(own));
+      other.binder().bindModelProperty("name", new JTextField(30), "text");
+      ctrl.start(true);
+      child.start(true);
+      other.start(true);
+      dispatcher.runAll();
+      model.setName("name-" + i);
+      own.setName("own-" + i);
+      ctrl.dispose();
+      closed.add(new WeakReference<>(ctrl));
+      closed.add(new WeakReference<>(other));
+      models.add(new WeakReference<>(own));
+    }
+    long elapsed = System.nanoTime() - start;
+
+    if (listeners(model) != modelListeners || listeners(model.getAddress()) != addressListeners) {
+      throw new IllegalStateException("Listeners left on the model [" + listeners(model) + "][" + listeners(model.getAddress()) + "]");
+    }
+    long alive = reachable(closed), aliveModels = reachable(models);
+    for (int i = 0; i < 10 && alive + aliveModels > 0; i++) {
+      System.gc();
+      Thread.sleep(100);
+      alive = reachable(closed);
+      aliveModels = reachable(models);
+    }
+    System.out.printf("%d controllers opened and closed in %d ms, %d controllers and %d models still reachable after gc%n", controllers, elapsed / 1000000, alive, aliveModels);
+    if (alive + aliveModels > 0) {
+      throw new IllegalStateException("Disposed controllers [" + alive + "] or models [" + aliveModels + "] still reachable");
+    }
+  }
+
+  private static long reachable(List<WeakReference<Object>> refs) {
+    return refs.stream().filter(ref -> ref.get() != null).count();
+  }
+
+  private static int listeners(MVC.Model model) {
+    return model.getPropertyChangeListeners().length;
+  }
+
+}
@@ -0,0 +1,105 @@
+package org.keeber.desktop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the heap taken by a million small row models - as they are now (listener support only
+ * created for rows that are listened to) and with the support created up front.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example4 {
+
+  public static class Row extends MVC.Model {
+    private int id;
+    private String name;
+    private double amount;
+
+    public Row(int id, String name, double amount) {
+      this.id = id;
+      this.name = name;
+      this.amount = amount;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      propertyChanged("name", this.name, this.name = name);
+    }
+
+    public double getAmount() {
+      return amount;
+    }
+
+    public void setAmount(double amount) {
+      propertyChanged("amount", this.amount, this.amount = amount);
+    }
+
+  }
+
+  /**
+   * A row that creates its listener support up front (as every model used to).
+   */
+  public static class EagerRow extends Row {
+
+    public EagerRow(int id, String name, double amount) {
+      super(id, name, amount);
+      support();
+    }
+
+  }
+
+  public static void main(String[] args) {
+    int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    String[] names = {"alpha", "beta", "gamma", "delta"};
+
+    long eager = measure(rows, i -> new EagerRow(i, names[i & 3], i));
+    long lazy = measure(rows, i -> new Row(i, names[i & 3], i));
+
+    System.out.printf("%d rows: eager support %d MB (%d bytes/row), lazy support %d MB (%d bytes/row)%n", rows, eager >> 20, eager / rows, lazy >> 20, lazy / rows);
+
+    /*
+     * Setters on rows nobody listens to return straight away.
+     */
+    List<Row> table = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      table.add(new Row(i, names[i & 3], i));
+    }
+    long start = System.nanoTime();
+    for (Row row : table) {
+      row.setAmount(row.getAmount() + 1);
+    }
+    System.out.printf("%d unobserved setter calls in %d ms%n", rows, (System.nanoTime() - start) / 1000000);
+  }
+
+  private static long measure(int rows, IntFunction<Row> row) {
+    long before = used();
+    List<Row> table = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      table.add(row.apply(i));
+    }
+    long after = used();
+    if (table.size() != rows) {
+      throw new IllegalStateException();
+    }
+    return after - before;
+  }
+
+  private static long used() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}
@@ -0,0 +1,143 @@
+package org.keeber.desktop;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Objects;
+
+/**
+ * Replicates a model to a headless worker JVM over a loopback socket - the worker keeps a mirror,
+ * and answers each request with a checksum of its mirror, which is replicated back and compared
+ * with the checksum of the model.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example5 {
+
+  public static class Model extends MVC.Model {
+    private String label;
+    private MVC.Model.ObservableList<Integer> values = new MVC.Model.ObservableList<>();
+    private MVC.Model.ObservableMap<String, Double> totals = new MVC.Model.ObservableMap<>();
+    private int request;
+    private long checksum;
+
+    public String getLabel() {
+      return label;
+    }
+
+    public void setLabel(String label) {
+      propertyChanged("label", this.label, this.label = label);
+    }
+
+    public MVC.Model.ObservableList<Integer> getValues() {
+      return values;
+    }
+
+    public MVC.Model.ObservableMap<String, Double> getTotals() {
+      return totals;
+    }
+
+    public int getRequest() {
+      return request;
+    }
+
+    public void setRequest(int request) {
+      propertyChanged("request", this.request, this.request = request);
+    }
+
+    public long getChecksum() {
+      return checksum;
+    }
+
+    public void setChecksum(long checksum) {
+      propertyChanged("checksum", this.checksum, this.checksum = checksum);
+    }
+
+    private long state() {
+      return ((long) request << 32) ^ (Objects.hash(label, values, totals) & 0xFFFFFFFFL);
+    }
+
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 1 && args[0].equals("worker")) {
+      worker(Integer.parseInt(args[1]));
+      return;
+    }
+    int changes = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+    Model model = new Model();
+    model.setLabel("start");
+
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      Process worker = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java", "-Djava.awt.headless=true", "-cp", System.getProperty("java.class.path"), Example5.class.getName(), "worker", String.valueOf(server.getLocalPort())).inheritIO().start();
+      MVC.Replication.Endpoint endpoint = MVC.Replication.connect(model, server.accept(), true);
+
+      long start = System.nanoTime();
+      for (int i = 0; i < changes; i++) {
+        switch (i % 4) {
+          case 0:
+            model.setLabel("label-" + i);
+            break;
+          case 1:
+            model.getValues().add(i);
+            break;
+          case 2:
+            if (model.getValues().size() > 1000) {
+              model.getValues().remove(0);
+            } else {
+              model.getValues().set(0, i);
+            }
+            break;
+          default:
+            model.getTotals().put("key-" + (i % 5000), i / 3.0);
+        }
+        if (i % 1000 == 999) {
+          dispatcher.runPending();
+        }
+      }
+      dispatcher.runAll();
+      long sent = System.nanoTime() - start;
+
+      /*
+       * The request is sent after all the changes so the worker answers for its mirror of them.
+       */
+      model.setRequest(1);
+      long expected = model.state();
+      while (model.getChecksum() == 0 && !endpoint.isClosed()) {
+        dispatcher.runAll();
+        Thread.sleep(1);
+      }
+      long elapsed = System.nanoTime() - start;
+      endpoint.close();
+      worker.waitFor();
+
+      if (model.getChecksum() != expected) {
+        throw new IllegalStateException("Mirror out of sync [" + model.getChecksum() + "][" + expected + "]");
+      }
+      System.out.printf("%d changes sent in %d ms, mirror in sync after %d ms (%.0f changes/s)%n", endpoint.getSent(), sent / 1000000, elapsed / 1000000, endpoint.getSent() / (elapsed / 1e9));
+    }
+  }
+
+  private static void worker(int port) throws Exception {
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+    Model mirror = new Model();
+    mirror.addPropertyChangeListener(evt -> {
+      if ("request".equals(evt.getPropertyName())) {
+        mirror.setChecksum(mirror.state());
+      }
+    });
+    MVC.Replication.Endpoint endpoint = MVC.Replication.connect(mirror, new Socket(InetAddress.getLoopbackAddress(), port), false);
+    while (!endpoint.isClosed()) {
+      if (dispatcher.runAll() == 0) {
+        Thread.sleep(1);
+      }
+    }
+  }
+
+}
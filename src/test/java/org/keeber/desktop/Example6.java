@@ -0,0 +1,112 @@
+package org.keeber.desktop;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+
+import javax.swing.Action;
+import javax.swing.JPanel;
+
+/**
+ * Records a scripted session against the Example1 model (model changes, actions and mouse clicks)
+ * then replays the trace against a new controller and prints the handler latencies. Pass a file
+ * name to keep the trace (it is replayed from the file).
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example6 {
+
+  public static class Controller extends MVC.Controller<Example1.Model> {
+    private int clicks, changes;
+
+    public Controller(Example1.Model model) {
+      super(model);
+    }
+
+    @WatchListener(properties = {"name", "address.street", "address.town", "address.postcode"})
+    public void onChanged(PropertyWatchEvent<String> pwe) {
+      changes++;
+    }
+
+    public void onRename(ActionEvent ae) {
+      m.setName(ae.getActionCommand().toUpperCase());
+    }
+
+    public void onClick(MVC.Controller.MouseEvent<?> me) {
+      clicks += me.getNativeEvent().getClickCount();
+      m.getAddress().setTown("town-" + clicks + "-" + me.getNativeEvent().getX());
+    }
+
+  }
+
+  private static Controller controller(MVC.Dispatcher.Queue dispatcher) {
+    Controller ctrl = new Controller(new Example1.Model());
+    ctrl.getLogger().setLevel(Level.WARNING);
+    ctrl.start(true);
+    dispatcher.runAll();
+    return ctrl;
+  }
+
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    int events = 10000;
+    MVC.Dispatcher.Queue dispatcher = new MVC.Dispatcher.Queue();
+    MVC.Dispatcher.set(dispatcher);
+
+    /*
+     * Record.
+     */
+    ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    OutputStream out = args.length > 0 ? Files.newOutputStream(Paths.get(args[0])) : memory;
+    Controller recorded = controller(dispatcher);
+    MVC.Trace.Recorder recorder = MVC.Trace.record(out, recorded);
+    Action rename = recorded.addAction("Rename", "onRename");
+    JPanel panel = new JPanel();
+    MouseListener mouse = recorded.addMouseListener("onClick");
+    for (int i = 0; i < events; i++) {
+      switch (i % 4) {
+        case 0:
+          recorded.m.getAddress().setStreet("street-" + i);
+          break;
+        case 1:
+          rename.actionPerformed(new ActionEvent(panel, ActionEvent.ACTION_PERFORMED, "name-" + i));
+          break;
+        case 2:
+          mouse.mouseClicked(new java.awt.event.MouseEvent(panel, java.awt.event.MouseEvent.MOUSE_CLICKED, 0, 0, i % 640, i % 480, 1 + i % 2, false, 1));
+          break;
+        default:
+          recorded.m.getAddress().setPostcode("PC" + i);
+      }
+      dispatcher.runAll();
+    }
+    recorder.close();
+    System.out.printf("Recorded %d records (%d bytes)%n", recorder.getRecords(), args.length > 0 ? Files.size(Paths.get(args[0])) : memory.size());
+
+    /*
+     * Replay.
+     */
+    Controller replayed = controller(dispatcher);
+    MVC.Trace.Report report;
+    try (InputStream in = args.length > 0 ? Files.newInputStream(Paths.get(args[0])) : new ByteArrayInputStream(memory.toByteArray())) {
+      report = MVC.Trace.replay(in, replayed);
+    }
+    System.out.print(report);
+    Example1.Model a = recorded.m, b = replayed.m;
+    if (!a.getName().equals(b.getName()) || !a.getAddress().getTown().equals(b.getAddress().getTown()) || !a.getAddress().getStreet().equals(b.getAddress().getStreet())
+        || !a.getAddress().getPostcode().equals(b.getAddress().getPostcode())) {
+      throw new IllegalStateException("Replay out of sync");
+    }
+    if (recorded.changes != replayed.changes) {
+      throw new IllegalStateException("Watch listeners called " + replayed.changes + " times (recorded " + recorded.changes + ")");
+    }
+  }
+
+}
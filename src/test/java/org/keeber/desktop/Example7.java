@@ -0,0 +1,100 @@
+package org.keeber.desktop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Checks the batched key/old/new changes delivered to an ObservableMap watcher - the changes made
+ * in one EDT tick arrive as one event, repeated changes to a key are collapsed and keys that end up
+ * where they started are left out.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example7 {
+
+  public static class Model extends MVC.Model {
+    private ObservableMap<String, Integer> stock = new ObservableMap<>();
+
+    public ObservableMap<String, Integer> getStock() {
+      return stock;
+    }
+
+  }
+
+  public static class Controller extends MVC.Controller<Model> {
+    private final List<Map<String, MVC.Controller.MapChange<String, Integer>>> events = new ArrayList<>();
+
+    public Controller(Model model) {
+      super(model);
+    }
+
+    @WatchListener(properties = {"stock"})
+    public void onStockChanged(PropertyWatchEvent<Model.ObservableMap<String, Integer>> pwe) {
+      events.add(pwe.getMapChanges());
+    }
+
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.setProperty("java.awt.headless", "true");
+    Model model = new Model();
+    model.getStock().put("apples", 1);
+    model.getStock().put("pears", 2);
+    Controller ctrl = new Controller(model);
+    ctrl.start(false);
+    SwingUtilities.invokeAndWait(() -> {
+    });
+
+    /*
+     * One tick - an add, a change made twice, a removal and a key put back as it was.
+     */
+    SwingUtilities.invokeAndWait(() -> {
+      model.getStock().put("plums", 3);
+      model.getStock().put("apples", 4);
+      model.getStock().put("apples", 5);
+      model.getStock().remove("pears");
+      model.getStock().put("cherries", 6);
+      model.getStock().remove("cherries");
+      model.getStock().remove("missing");
+    });
+    SwingUtilities.invokeAndWait(() -> {
+    });
+
+    check(ctrl.events.size() == 1, "one event for the tick, got " + ctrl.events.size());
+    Map<String, MVC.Controller.MapChange<String, Integer>> changes = ctrl.events.get(0);
+    check(new ArrayList<>(changes.keySet()).equals(List.of("plums", "apples", "pears")), "changed keys in order, got " + changes.keySet());
+    check(change(changes, "plums", MVC.Controller.MapChange.Type.ADDED, null, 3), "plums added");
+    check(change(changes, "apples", MVC.Controller.MapChange.Type.CHANGED, 1, 5), "apples changed from the first old to the last new value");
+    check(change(changes, "pears", MVC.Controller.MapChange.Type.REMOVED, 2, null), "pears removed");
+
+    /*
+     * A value put back within the tick is no change at all.
+     */
+    SwingUtilities.invokeAndWait(() -> {
+      model.getStock().put("plums", 7);
+      model.getStock().put("plums", 3);
+    });
+    SwingUtilities.invokeAndWait(() -> {
+    });
+    check(ctrl.events.size() == 1, "no event when nothing ended up changed");
+
+    System.out.println("Map watch events as expected: " + changes.size() + " changes in one event");
+  }
+
+  private static boolean change(Map<String, MVC.Controller.MapChange<String, Integer>> changes, String key, MVC.Controller.MapChange.Type type, Integer oldValue, Integer newValue) {
+    MVC.Controller.MapChange<String, Integer> change = changes.get(key);
+    return change != null && change.getKey().equals(key) && change.getType() == type && Objects.equals(change.getOldValue().orElse(null), oldValue) && Objects.equals(change.getNewValue().orElse(null), newValue);
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
@@ -0,0 +1,182 @@
+package org.keeber.desktop;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks computed and aggregate properties - values are cached until a dependency changes, are
+ * recomputed lazily while nobody listens and eagerly (with one event, only when the value differs)
+ * while someone does.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example8 {
+
+  public static class Line extends MVC.Model {
+    private double amount;
+
+    public Line(double amount) {
+      this.amount = amount;
+    }
+
+    public double getAmount() {
+      return amount;
+    }
+
+    public void setAmount(double amount) {
+      propertyChanged("amount", this.amount, this.amount = amount);
+    }
+
+  }
+
+  public static class Order extends MVC.Model {
+    private double price;
+    private int quantity;
+    private ObservableList<Line> lines = new ObservableList<>();
+    private transient int computations;
+    private transient Computed<Double> total = computed("total", () -> {
+      computations++;
+      return price * quantity;
+    }, "price", "quantity");
+    private transient Computed<Boolean> free = computed("free", () -> price == 0, "price");
+    private transient Computed<String> label = computed("label", () -> getFree() ? "free" : "paid", "free");
+    private transient Computed<Integer> count = computed("count", () -> lines.size(), "lines");
+    private transient Computed<Double> largest = aggregate("largest", lines, Aggregate.Type.MAX, Line::getAmount);
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      propertyChanged("price", this.price, this.price = price);
+    }
+
+    public int getQuantity() {
+      return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+      propertyChanged("quantity", this.quantity, this.quantity = quantity);
+    }
+
+    public ObservableList<Line> getLines() {
+      return lines;
+    }
+
+    public void setLines(ObservableList<Line> lines) {
+      propertyChanged("lines", this.lines, this.lines = lines);
+    }
+
+    public Double getTotal() {
+      return total.get();
+    }
+
+    public Boolean getFree() {
+      return free.get();
+    }
+
+    public String getLabel() {
+      return label.get();
+    }
+
+    public Integer getCount() {
+      return count.get();
+    }
+
+    public Double getLargest() {
+      return largest.get();
+    }
+
+  }
+
+  public static void main(String[] args) {
+    Order order = new Order();
+    order.setPrice(2);
+    order.setQuantity(6);
+
+    /*
+     * Cached until a dependency changes - and only recomputed when read while nobody listens.
+     */
+    check(order.getTotal() == 12 && order.computations == 1, "total computed once");
+    order.getTotal();
+    check(order.computations == 1, "total cached, computed " + order.computations + " times");
+    order.setPrice(3);
+    order.setPrice(4);
+    check(order.computations == 1, "no recompute before the next read");
+    check(order.getTotal() == 24 && order.computations == 2, "total recomputed on read");
+
+    /*
+     * A computed property another one depends on is kept up to date.
+     */
+    check(order.getLabel().equals("paid"), "label paid");
+    order.setPrice(0);
+    check(order.getLabel().equals("free"), "label follows free, got " + order.getLabel());
+    order.setPrice(4);
+    check(order.getLabel().equals("paid") && order.computations == 2, "label paid again and total still not recomputed");
+
+    /*
+     * Recomputed straight away while listened to - an event only when the value differs (from the
+     * value last read, as a binding does when it starts).
+     */
+    order.getTotal();
+    order.getCount();
+    order.getLargest();
+    List<String> events = new ArrayList<>();
+    order.addPropertyChangeListener(e -> events.add(e.getPropertyName() + "=" + e.getNewValue()));
+    order.setQuantity(5);
+    check(order.computations == 4, "total recomputed eagerly, computed " + order.computations + " times");
+    check(same(events, "quantity=5", "total=20.0"), "one total event, got " + events);
+    events.clear();
+    order.setPrice(5);
+    check(same(events, "price=5.0", "total=25.0"), "no event for free as it is still false, got " + events);
+    events.clear();
+    order.setPrice(0);
+    check(same(events, "price=0.0", "total=0.0", "free=true", "label=free"), "free changed, got " + events);
+
+    /*
+     * Collection contents count as dependencies - and the new list is followed when the property is
+     * set.
+     */
+    events.clear();
+    order.getLines().add(new Line(5));
+    order.getLines().add(new Line(9));
+    order.getLines().add(new Line(3));
+    check(order.getCount() == 3 && order.getLargest() == 9, "count 3 and largest 9");
+    order.getLines().remove(1);
+    check(order.getLargest() == 5, "largest rescanned after the extreme was removed, got " + order.getLargest());
+    Line line = order.getLines().get(1);
+    line.setAmount(11);
+    order.getLines().fileElementChanged(line);
+    check(order.getLargest() == 11, "largest follows element changes, got " + order.getLargest());
+    check(events.contains("largest=11.0") && events.contains("count=2"), "aggregate and count events, got " + events);
+
+    MVC.Model.ObservableList<Line> old = order.getLines();
+    order.setLines(new MVC.Model.ObservableList<>());
+    check(order.getCount() == 0, "count follows the new list");
+    events.clear();
+    old.add(new Line(1));
+    check(events.isEmpty() && order.getCount() == 0, "the old list is no longer watched, got " + events);
+    order.getLines().add(new Line(1));
+    check(same(events, "count=1"), "the new list is watched, got " + events);
+
+    System.out.println("Computed properties as expected: total computed " + order.computations + " times");
+  }
+
+  /**
+   * The computed events are fired as the dependencies hear about the change - so before or after
+   * the listener hears about the change itself.
+   */
+  private static boolean same(List<String> events, String... expected) {
+    return events.size() == expected.length && new HashSet<>(events).equals(Set.of(expected));
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}
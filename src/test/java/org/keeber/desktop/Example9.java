@@ -0,0 +1,144 @@
+package org.keeber.desktop;
+
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Checks validation off the EDT - a result that is overtaken by a newer validation of the same
+ * property is never posted (even when it finishes last) and rules are only run again when their
+ * inputs change.
+ *
+ * @author Jason Keeber <jason@keeber.org>
+ *
+ */
+public class Example9 {
+
+  public static class Model extends MVC.Model {
+    private String name, password, confirm;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      propertyChanged("name", this.name, this.name = name);
+    }
+
+    public String getPassword() {
+      return password;
+    }
+
+    public void setPassword(String password) {
+      propertyChanged("password", this.password, this.password = password);
+    }
+
+    public String getConfirm() {
+      return confirm;
+    }
+
+    public void setConfirm(String confirm) {
+      propertyChanged("confirm", this.confirm, this.confirm = confirm);
+    }
+
+  }
+
+  public static class Controller extends MVC.Controller<Model> {
+
+    public Controller(Model model) {
+      super(model);
+    }
+
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.setProperty("java.awt.headless", "true");
+    CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1), finished = new CountDownLatch(1);
+    AtomicInteger names = new AtomicInteger(), rules = new AtomicInteger();
+
+    Model model = new Model();
+    Controller ctrl = new Controller(model);
+    ctrl.binder().validate("name", (String name) -> {
+      if ("slow".equals(name)) {
+        started.countDown();
+        /*
+         * Ignores the interrupt from being cancelled - so the stale result is returned after the
+         * newer one has been posted.
+         */
+        boolean released = false;
+        while (!released) {
+          try {
+            released = release.await(10, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException e) {
+            // cancelled - carry on regardless
+          }
+        }
+        finished.countDown();
+        return MVC.Controller.Validation.invalid("slow");
+      }
+      names.incrementAndGet();
+      return name == null || name.isEmpty() ? MVC.Controller.Validation.invalid("required") : MVC.Controller.Validation.valid();
+    });
+    ctrl.binder().validate("match", new String[] {"password", "confirm"}, values -> {
+      rules.incrementAndGet();
+      return Objects.equals(values[0], values[1]) ? MVC.Controller.Validation.valid() : MVC.Controller.Validation.invalid("passwords differ");
+    });
+    ctrl.start(true);
+    await(() -> message(ctrl, "name").equals("required") && names.get() == 1 && rules.get() == 1, "the initial validation");
+
+    SwingUtilities.invokeAndWait(() -> model.setName("slow"));
+    check(started.await(5, TimeUnit.SECONDS), "the slow validation to start");
+    SwingUtilities.invokeAndWait(() -> model.setName(""));
+    await(() -> names.get() == 2, "the newer validation run");
+    release.countDown();
+    check(finished.await(5, TimeUnit.SECONDS), "the stale validation to finish");
+    Thread.sleep(100);
+    SwingUtilities.invokeAndWait(() -> {
+    });
+    check(message(ctrl, "name").equals("required"), "the stale result dropped, got " + message(ctrl, "name"));
+
+    SwingUtilities.invokeAndWait(() -> model.setName("jason"));
+    await(() -> ctrl.binder().getValidation().get("name").isValid(), "name valid");
+
+    /*
+     * The rule runs when one of its inputs changes - not for other properties.
+     */
+    SwingUtilities.invokeAndWait(() -> model.setPassword("secret"));
+    await(() -> message(ctrl, "match").equals("passwords differ") && rules.get() == 2, "the rule run again");
+    SwingUtilities.invokeAndWait(() -> model.setName("keeber"));
+    SwingUtilities.invokeAndWait(() -> model.setConfirm("secret"));
+    await(() -> ctrl.binder().getValidation().get("match").isValid(), "passwords match");
+    Thread.sleep(100);
+    check(rules.get() == 3, "the rule run 3 times, ran " + rules.get());
+
+    System.out.println("Validation as expected: stale result dropped, rule run " + rules.get() + " times");
+  }
+
+  private static String message(Controller ctrl, String key) {
+    String[] message = new String[1];
+    try {
+      SwingUtilities.invokeAndWait(() -> message[0] = String.valueOf(ctrl.binder().getValidation().get(key).getMessage()));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+    return message[0];
+  }
+
+  private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+    for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(10);
+    }
+    check(condition.getAsBoolean(), what);
+  }
+
+  private static void check(boolean ok, String what) {
+    if (!ok) {
+      throw new IllegalStateException("Expected " + what);
+    }
+  }
+
+}